@@ -0,0 +1,101 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.api.ApiServer;
+import edu.ccrm.config.DataStore;
+import edu.ccrm.domain.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local load generator for {@link ApiServer}: starts the server on a free port, seeds courses and
+ * students, then has {@code clients} concurrent simulated students each run {@code ops} requests
+ * (enroll, record marks, read transcript, occasionally the top-5 report) and reports throughput and
+ * latency percentiles. Rejections such as duplicate enrollments or the credit limit count as served.
+ *
+ * Usage: java -cp bin edu.ccrm.bench.ApiLoadBench [clients] [opsPerClient] [students]
+ */
+public class ApiLoadBench {
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int students = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+
+        DataStore ds = DataStore.getInstance();
+        int courses = 40;
+        for (int i = 0; i < courses; i++) {
+            ds.addCourse(new Course.Builder("LOAD" + i).title("Load " + i).credits(3).department("BENCH").build());
+        }
+        for (int i = 0; i < students; i++) {
+            ds.addStudent(new Student("load-" + i, "LREG" + i, "Student " + i, "l" + i + "@example.com"));
+        }
+
+        try (ApiServer server = ApiServer.start(0)) {
+            String base = "http://localhost:" + server.getPort();
+            ExecutorService pool = ApiServer.newRequestExecutor();
+            HttpClient http = HttpClient.newBuilder().executor(pool).build();
+            long[][] latencies = new long[clients][];
+            LongAdder failures = new LongAdder();
+            Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+            long start = System.nanoTime();
+            List<Future<?>> running = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                running.add(pool.submit(() -> {
+                    Random rnd = new Random(client);
+                    long[] lat = new long[ops];
+                    String reg = "LREG" + rnd.nextInt(students);
+                    String course = null;
+                    for (int i = 0; i < ops; i++) {
+                        if (i % 4 == 0) course = "LOAD" + rnd.nextInt(courses);
+                        HttpRequest req = switch (i % 4) {
+                            case 0 -> form(base + "/enrollments", "POST", "regNo=" + reg + "&courseCode=" + course);
+                            case 1 -> form(base + "/marks", "PUT", "regNo=" + reg + "&courseCode=" + course + "&marks=" + rnd.nextInt(101));
+                            case 2 -> HttpRequest.newBuilder(URI.create(base + "/students/" + reg + "/transcript")).build();
+                            default -> i % 20 == 3
+                                    ? HttpRequest.newBuilder(URI.create(base + "/reports/top?limit=5")).build()
+                                    : HttpRequest.newBuilder(URI.create(base + "/students/" + reg)).build();
+                        };
+                        long t0 = System.nanoTime();
+                        try {
+                            HttpResponse<Void> resp = http.send(req, HttpResponse.BodyHandlers.discarding());
+                            statuses.computeIfAbsent(resp.statusCode(), k -> new LongAdder()).increment();
+                        } catch (Exception ex) {
+                            if (failures.sum() == 0) System.err.println("first failure: " + ex);
+                            failures.increment();
+                        }
+                        lat[i] = System.nanoTime() - t0;
+                    }
+                    latencies[client] = lat;
+                }));
+            }
+            for (Future<?> f : running) f.get();
+            long elapsed = System.nanoTime() - start;
+            pool.shutdown();
+
+            long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            System.out.printf("clients=%d ops/client=%d students=%d%n", clients, ops, students);
+            System.out.printf("requests=%d failures=%d statuses=%s%n", all.length, failures.sum(), new TreeMap<>(statuses));
+            System.out.printf("throughput=%.0f req/s%n", all.length / (elapsed / 1e9));
+            System.out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f max=%.2f%n",
+                    pct(all, 0.50), pct(all, 0.90), pct(all, 0.99), all[all.length - 1] / 1e6);
+        }
+    }
+
+    private static HttpRequest form(String url, String method, String body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static double pct(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+}
@@ -0,0 +1,108 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.ChangeStream;
+import edu.ccrm.config.DataStore;
+import edu.ccrm.config.StoreEvent;
+import edu.ccrm.domain.*;
+import edu.ccrm.util.Metrics;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-path cost and delivery guarantees of the DataStore change stream. Writer threads enroll
+ * their own students and grade every enrollment, first with no subscriber, then with a fast and a
+ * deliberately slow subscriber (which forces backpressure on a small ring). Checks that each
+ * subscriber receives every event exactly once and sees each enrollment before its marks.
+ * Exits with status 1 if a check fails.
+ *
+ * Usage: java -Dccrm.eventRing=1024 -cp bin edu.ccrm.bench.EventStreamBench [threads] [studentsPerThread]
+ */
+public final class EventStreamBench {
+    private static final int COURSES = 8;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        DataStore ds = DataStore.getInstance();
+        Course[] cs = new Course[COURSES];
+        for (int i = 0; i < COURSES; i++) {
+            cs[i] = new Course.Builder(SyntheticData.courseCode(i)).credits(1).build();
+            ds.addCourse(cs[i]);
+        }
+
+        double bare = run(ds, cs, threads, perThread, "a");
+        System.out.printf("no subscriber:   %,12.0f events/s%n", bare);
+
+        Checker fast = new Checker(), slow = new Checker();
+        ChangeStream.Subscription f = ds.events().subscribe("bench-fast", 512, fast::accept);
+        ChangeStream.Subscription s = ds.events().subscribe("bench-slow", 64, batch -> {
+            slow.accept(batch);
+            LockSupport.parkNanos(20_000); // a subscriber doing I/O per batch
+        });
+        long stallsBefore = Metrics.counter("events.backpressure").sum();
+        double subscribed = run(ds, cs, threads, perThread, "b");
+        f.close();
+        s.close();
+        long expected = (long) threads * perThread * (1 + COURSES);
+        System.out.printf("two subscribers: %,12.0f events/s (ring %,d, %,d producer stalls)%n", subscribed,
+                ds.events().capacity(), Metrics.counter("events.backpressure").sum() - stallsBefore);
+
+        boolean ok = fast.check("fast", expected) & slow.check("slow", expected);
+        System.out.println(ok ? "OK: every event delivered once, in order" : "FAILED");
+        if (!ok) System.exit(1);
+    }
+
+    /** Returns mutations per second: each student is added, enrolled in half the courses and graded. */
+    private static double run(DataStore ds, Course[] cs, int threads, int perThread, String tag) throws InterruptedException {
+        List<Thread> all = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread th = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    String key = tag + "-" + id + "-" + i;
+                    Student st = new Student(key, key.toUpperCase(), "Event Writer " + i, key + "@example.edu");
+                    ds.addStudent(st);
+                    for (int c = i % 2; c < cs.length; c += 2) {
+                        Enrollment e = new Enrollment(st, cs[c]);
+                        ds.addEnrollment(e);
+                        ds.recordMarks(e, (i + c) % 101);
+                    }
+                }
+            });
+            th.start();
+            all.add(th);
+        }
+        for (Thread th : all) th.join();
+        double secs = (System.nanoTime() - start) / 1e9;
+        return threads * (double) perThread * (1 + COURSES) / secs;
+    }
+
+    /** Counts events and checks that each enrollment is announced before its marks. */
+    private static final class Checker {
+        private final Map<Enrollment, Boolean> seen = new IdentityHashMap<>();
+        private long events, outOfOrder, duplicates;
+
+        void accept(List<StoreEvent> batch) {
+            for (StoreEvent ev : batch) {
+                events++;
+                if (ev instanceof StoreEvent.Enrolled en) {
+                    if (seen.put(en.enrollment(), Boolean.FALSE) != null) duplicates++;
+                } else if (ev instanceof StoreEvent.MarksRecorded mr) {
+                    if (seen.replace(mr.enrollment(), Boolean.TRUE) != Boolean.FALSE) outOfOrder++;
+                }
+            }
+        }
+
+        boolean check(String name, long expected) {
+            boolean ok = events == expected && outOfOrder == 0 && duplicates == 0;
+            if (!ok) System.out.printf("%s: FAILED events=%,d expected=%,d outOfOrder=%d duplicates=%d%n",
+                    name, events, expected, outOfOrder, duplicates);
+            return ok;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.DataStore;
+import edu.ccrm.domain.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Retained heap per student and per enrollment, measured as the growth of live heap (after
+ * repeated full GCs) while the store is filled. Figures include the store's indexes, so they are
+ * what one more record really costs. Run it on a quiet JVM with a fixed heap for stable numbers.
+ *
+ * Usage: java -Xms2g -Xmx2g -cp bin edu.ccrm.bench.FootprintProbe [students] [coursesPerStudent]
+ */
+public final class FootprintProbe {
+    private static final int COURSES = 500;
+
+    public static void main(String[] args) {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int per = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        DataStore ds = DataStore.getInstance();
+        Random rnd = new Random(42);
+        String[] depts = {"CS", "MATH", "PHYS", "EE", "HIST"};
+
+        Course[] cs = new Course[COURSES];
+        for (int i = 0; i < COURSES; i++) {
+            // new String per course, as an importer would produce
+            cs[i] = new Course.Builder(SyntheticData.courseCode(i)).credits(3)
+                    .department(new String(depts[i % depts.length])).build();
+            ds.addCourse(cs[i]);
+        }
+
+        long base = liveHeap();
+        Student[] ss = new Student[students];
+        List<Student> batch = new ArrayList<>(students);
+        for (int i = 0; i < students; i++) {
+            ss[i] = new Student(java.util.UUID.randomUUID().toString(), SyntheticData.regNo(i),
+                    "Student " + i, "s" + i + "@example.edu");
+            batch.add(ss[i]);
+        }
+        ds.addStudents(batch);
+        batch = null;
+        long afterStudents = liveHeap();
+
+        LocalDate day = LocalDate.of(2024, 8, 1);
+        List<Enrollment> es = new ArrayList<>(4096);
+        long enrollments = 0;
+        for (int i = 0; i < students; i++) {
+            int start = rnd.nextInt(COURSES);
+            for (int j = 0; j < per; j++) {
+                Enrollment e = new Enrollment(ss[i], cs[(start + j) % COURSES], day.plusDays(rnd.nextInt(30)));
+                if (rnd.nextInt(5) != 0) e.recordMarks(rnd.nextInt(101));
+                es.add(e);
+            }
+            if (es.size() >= 4096) {
+                ds.addEnrollments(es);
+                enrollments += es.size();
+                es.clear();
+            }
+        }
+        ds.addEnrollments(es);
+        enrollments += es.size();
+        es = null;
+        long afterEnrollments = liveHeap();
+
+        System.out.printf("%,d students, %,d enrollments, %,d courses%n", students, enrollments, COURSES);
+        System.out.printf("%-24s %,10.1f bytes%n", "per student", (double) (afterStudents - base) / students);
+        System.out.printf("%-24s %,10.1f bytes%n", "per enrollment", (double) (afterEnrollments - afterStudents) / Math.max(1, enrollments));
+        System.out.printf("%-24s %,10.1f MB%n", "total", (afterEnrollments - base) / 1e6);
+        // keep everything reachable until the last measurement
+        if (ss.length != ds.studentCount()) System.out.println();
+    }
+
+    private static long liveHeap() {
+        MemoryMXBean mem = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try { Thread.sleep(50); } catch (InterruptedException ex) { Thread.currentThread().interrupt(); }
+            used = Math.min(used, mem.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+}
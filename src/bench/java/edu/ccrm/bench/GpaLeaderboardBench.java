@@ -0,0 +1,72 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.DataStore;
+import edu.ccrm.domain.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the incremental GPA leaderboard with the previous full-sort implementation,
+ * which re-scanned every enrollment inside the sort comparator.
+ *
+ * Usage: java -cp bin edu.ccrm.bench.GpaLeaderboardBench [students] [coursesPerStudent]
+ */
+public class GpaLeaderboardBench {
+    private static final int WARMUP = 3;
+    private static final int MEASURE = 5;
+
+    public static void main(String[] args) {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int perStudent = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        DataStore ds = DataStore.getInstance();
+        Random rnd = new Random(42);
+
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Course c = new Course.Builder("BENCH" + i).credits(3).build();
+            ds.addCourse(c);
+            courses.add(c);
+        }
+        List<Enrollment> all = new ArrayList<>();
+        for (int i = 0; i < students; i++) {
+            Student s = new Student("bench-" + i, "BREG" + i, "Student " + i, "s" + i + "@example.com");
+            ds.addStudent(s);
+            for (int j = 0; j < perStudent; j++) {
+                Enrollment e = new Enrollment(s, courses.get((i + j) % courses.size()));
+                ds.addEnrollment(e);
+                ds.recordMarks(e, rnd.nextInt(101));
+                all.add(e);
+            }
+        }
+        System.out.printf("students=%d enrollments=%d%n", students, all.size());
+        double sorted = time(() -> fullSortTop(ds.listStudents(), all, 5));
+        double board = time(() -> ds.topStudentsByGPA(5));
+        System.out.printf("full sort (old)   : %12.3f ms/op%n", sorted);
+        System.out.printf("leaderboard top-5 : %12.3f ms/op%n", board);
+    }
+
+    // the implementation topStudentsByGPA had before the leaderboard
+    private static List<Student> fullSortTop(List<Student> students, List<Enrollment> enrollments, int limit) {
+        return students.stream()
+                .sorted((a, b) -> Double.compare(scanGpa(b, enrollments), scanGpa(a, enrollments)))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private static double scanGpa(Student s, List<Enrollment> enrollments) {
+        return enrollments.stream()
+                .filter(e -> e.getStudent().getId().equals(s.getId()))
+                .filter(e -> e.getMarks() != null)
+                .mapToInt(e -> e.getGrade().getPoints())
+                .average()
+                .orElse(0.0);
+    }
+
+    private static double time(Runnable op) {
+        for (int i = 0; i < WARMUP; i++) op.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE; i++) op.run();
+        return (System.nanoTime() - start) / 1e6 / MEASURE;
+    }
+}
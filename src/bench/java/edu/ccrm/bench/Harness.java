@@ -0,0 +1,97 @@
+package edu.ccrm.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Small time-boxed micro-benchmark runner (the tree has no build file to hang JMH off).
+ * Each benchmark runs for a warmup period, then a measurement period, on one or more threads;
+ * every thread calls the operation in a tight loop and results are fed to a volatile sink so the
+ * JIT cannot drop the work. Reports throughput and mean time per operation.
+ */
+public final class Harness {
+    /** One benchmarked operation; {@code i} is a per-thread iteration counter, {@code thread} the thread index. */
+    @FunctionalInterface
+    public interface Op {
+        long run(int thread, long i) throws Exception;
+    }
+
+    public record Result(String name, int threads, long ops, long nanos) {
+        public double opsPerSec() { return ops / (nanos / 1e9); }
+        public double nsPerOp() { return (double) nanos * threads / Math.max(1, ops); }
+        @Override public String toString() {
+            return String.format("%-40s %3d thr %,16.0f ops/s %,14.1f ns/op", name, threads, opsPerSec(), nsPerOp());
+        }
+    }
+
+    private static volatile long sink;
+
+    private final long warmupNanos;
+    private final long measureNanos;
+    private final List<Result> results = new ArrayList<>();
+
+    public Harness(double warmupSeconds, double measureSeconds) {
+        this.warmupNanos = (long) (warmupSeconds * 1e9);
+        this.measureNanos = (long) (measureSeconds * 1e9);
+    }
+
+    public List<Result> getResults() { return results; }
+
+    public Result run(String name, Op op) throws Exception {
+        return run(name, 1, op);
+    }
+
+    public Result run(String name, int threads, Op op) throws Exception {
+        measure(threads, op, warmupNanos);
+        long[] counted = measure(threads, op, measureNanos);
+        Result r = new Result(name, threads, counted[0], counted[1]);
+        results.add(r);
+        System.out.println(r);
+        return r;
+    }
+
+    /** Runs {@code op} on {@code threads} threads for about {@code nanos}; returns {total ops, elapsed nanos}. */
+    private static long[] measure(int threads, Op op, long nanos) throws Exception {
+        long[] ops = new long[threads];
+        Exception[] failure = new Exception[1];
+        CyclicBarrier start = new CyclicBarrier(threads + 1);
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread w = new Thread(() -> {
+                long local = 0, acc = 0;
+                try {
+                    start.await();
+                    long deadline = System.nanoTime() + nanos;
+                    // check the clock every 64 calls so it doesn't dominate cheap operations
+                    do {
+                        for (int k = 0; k < 64; k++) acc += op.run(thread, local++);
+                    } while (System.nanoTime() < deadline);
+                } catch (Exception ex) {
+                    synchronized (failure) { failure[0] = ex; }
+                }
+                ops[thread] = local;
+                sink += acc;
+            }, "bench-" + t);
+            workers.add(w);
+            w.start();
+        }
+        start.await();
+        long t0 = System.nanoTime();
+        for (Thread w : workers) w.join();
+        long elapsed = System.nanoTime() - t0;
+        if (failure[0] != null) throw failure[0];
+        long total = 0;
+        for (long n : ops) total += n;
+        return new long[] {total, elapsed};
+    }
+
+    /** Times a one-shot operation {@code repeats} times after one warmup run; returns mean millis. */
+    public static double timeOnce(int repeats, Op op) throws Exception {
+        sink += op.run(0, 0);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < repeats; i++) sink += op.run(0, i + 1);
+        return (System.nanoTime() - t0) / 1e6 / repeats;
+    }
+}
@@ -0,0 +1,139 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.DataStore;
+import edu.ccrm.domain.*;
+import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.service.EnrollmentAnalytics;
+import edu.ccrm.service.EnrollmentService;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Benchmarks for the DataStore and service hot paths at several data sizes.
+ * {@link DataStore} is a process-wide singleton, so each size runs in its own forked JVM
+ * (with the same java binary and classpath), much like JMH forks.
+ *
+ * Usage: java -cp bin edu.ccrm.bench.HotPathBench [--sizes 1000,10000,100000,1000000]
+ *        [--threads 4] [--warmup 2] [--measure 3] [--heap 4g] [--test-data test-data]
+ */
+public class HotPathBench {
+    private static final int COURSES = 500;
+    private static final int PER_STUDENT = 4;
+    private static final int HOT_STUDENTS = 4;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parse(args);
+        if (!opts.containsKey("size")) {
+            for (String size : opts.getOrDefault("sizes", "1000,10000,100000,1000000").split(",")) fork(size.trim(), opts);
+            return;
+        }
+        runSize(Integer.parseInt(opts.get("size")), opts);
+    }
+
+    private static void fork(String size, Map<String, String> opts) throws Exception {
+        List<String> cmd = new ArrayList<>(List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx" + opts.getOrDefault("heap", "2g"),
+                "-cp", System.getProperty("java.class.path"),
+                HotPathBench.class.getName(), "--size", size));
+        for (Map.Entry<String, String> e : opts.entrySet()) {
+            if (e.getKey().equals("sizes") || e.getKey().equals("heap")) continue;
+            cmd.add("--" + e.getKey());
+            cmd.add(e.getValue());
+        }
+        int exit = new ProcessBuilder(cmd).inheritIO().start().waitFor();
+        if (exit != 0) System.out.println("size " + size + " failed with exit code " + exit);
+    }
+
+    private static void runSize(int students, Map<String, String> opts) throws Exception {
+        int threads = Integer.parseInt(opts.getOrDefault("threads", String.valueOf(Math.max(2, Runtime.getRuntime().availableProcessors()))));
+        Harness h = new Harness(Double.parseDouble(opts.getOrDefault("warmup", "2")),
+                Double.parseDouble(opts.getOrDefault("measure", "3")));
+        DataStore ds = DataStore.getInstance();
+        SyntheticData gen = SyntheticData.fromSeeds(Paths.get(opts.getOrDefault("test-data", "test-data")), 42);
+
+        long t0 = System.nanoTime();
+        SyntheticData.Dataset data = gen.populate(ds, students, COURSES, PER_STUDENT);
+        System.out.printf("%n== %,d students, %,d courses, %,d enrollments (generated in %.0f ms) ==%n",
+                students, COURSES, data.enrollments(), (System.nanoTime() - t0) / 1e6);
+
+        Student[] ss = data.students();
+        Course[] cs = data.courses();
+        String[] regNos = Arrays.stream(ss).map(Student::getRegNo).toArray(String[]::new);
+        h.run("findStudentByRegNo", (t, i) ->
+                ds.findStudentByRegNo(regNos[ThreadLocalRandom.current().nextInt(students)]).isPresent() ? 1 : 0);
+        h.run("listEnrollmentsForStudent", (t, i) ->
+                ds.listEnrollmentsForStudent(ss[ThreadLocalRandom.current().nextInt(students)]).size());
+        h.run("topStudentsByGPA(10)", (t, i) -> ds.topStudentsByGPA(10).size());
+        h.run("Grade.fromMarks", (t, i) -> Grade.fromMarks((int) (i % 101)).getPoints());
+
+        // enroll is measured as an enroll + unenroll cycle so the store stays the same size
+        EnrollmentService es = new EnrollmentService();
+        Student[] fresh = new Student[threads * 16];
+        for (int k = 0; k < fresh.length; k++) {
+            fresh[k] = new Student("bench-free-" + k, "BFREE" + k, "Bench Free " + k, "free" + k + "@example.edu");
+            ds.addStudent(fresh[k]);
+        }
+        h.run("enroll+unenroll (uncontended)", (t, i) -> {
+            Student s = fresh[(int) (i % 16)];
+            Course c = cs[(int) (i % cs.length)];
+            es.enroll(s, c);
+            return es.unenroll(s, c) ? 1 : 0;
+        });
+        h.run("enroll+unenroll (per-thread students)", threads, (t, i) -> {
+            Student s = fresh[t * 16 + (int) (i % 16)];
+            Course c = cs[(int) (i % cs.length)];
+            es.enroll(s, c);
+            return es.unenroll(s, c) ? 1 : 0;
+        });
+        h.run("enroll+unenroll (" + HOT_STUDENTS + " hot students)", threads, (t, i) -> {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            Student s = fresh[rnd.nextInt(HOT_STUDENTS)];
+            Course c = cs[rnd.nextInt(cs.length)];
+            try {
+                es.enroll(s, c);
+            } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException rejected) {
+                return 0;
+            }
+            return es.unenroll(s, c) ? 1 : 0;
+        });
+
+        EnrollmentAnalytics analytics = EnrollmentAnalytics.capture(ds);
+        double capture = Harness.timeOnce(3, (t, i) -> EnrollmentAnalytics.capture(ds).rowCount());
+        System.out.printf("%-40s %,12.1f ms %,16.0f rows/s%n", "analytics capture", capture, analytics.rowCount() / (capture / 1e3));
+        h.run("analytics gpaHistogram", (t, i) -> analytics.gpaHistogram().length);
+        h.run("analytics gradeDistributionByCourse", (t, i) -> analytics.gradeDistributionByCourse().size());
+        h.run("analytics departmentAverages", (t, i) -> analytics.departmentAverages().size());
+        h.run("analytics enrollmentsPerSemester", (t, i) -> analytics.enrollmentsPerSemester().size());
+
+        ImportExportService io = new ImportExportService();
+        Path dir = Files.createTempDirectory("ccrm-bench");
+        Path enrollCsv = dir.resolve("enrollments.csv");
+        Path studentCsv = dir.resolve("students.csv");
+        double exportStudents = Harness.timeOnce(3, (t, i) -> io.exportStudents(studentCsv));
+        double exportEnrollments = Harness.timeOnce(3, (t, i) -> io.exportEnrollments(enrollCsv));
+        double importEnrollments = Harness.timeOnce(3, (t, i) -> io.importEnrollments(enrollCsv).getAccepted());
+        long rows = data.enrollments();
+        System.out.printf("%-40s %,12.1f ms %,16.0f rows/s%n", "CSV export students", exportStudents, students / (exportStudents / 1e3));
+        System.out.printf("%-40s %,12.1f ms %,16.0f rows/s%n", "CSV export enrollments", exportEnrollments, rows / (exportEnrollments / 1e3));
+        System.out.printf("%-40s %,12.1f ms %,16.0f rows/s%n", "CSV import enrollments (re-grade)", importEnrollments, rows / (importEnrollments / 1e3));
+        for (File f : Objects.requireNonNull(dir.toFile().listFiles())) f.delete();
+        Files.delete(dir);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> out = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("expected --option value, got " + args[i]);
+            out.put(args[i].substring(2), args[i + 1]);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,161 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.DataStore;
+import edu.ccrm.config.ReadView;
+import edu.ccrm.domain.*;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.util.Metrics;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read views under write load. Writer threads keep re-grading, dropping and re-adding enrollments,
+ * deactivating and adding students. The bench briefly pauses them to open a view and record the
+ * exact state, lets them run on, and then checks that the view (and a CSV export and GPA ranking
+ * taken through it) still shows the recorded state. Also prints writer throughput with and without
+ * an open view, and the view's open latency and undo entries. Exits with status 1 if a check fails.
+ *
+ * Usage: java -cp bin edu.ccrm.bench.ReadViewBench [students] [writers] [seconds]
+ */
+public final class ReadViewBench {
+    private static final int COURSES = 40, PER_STUDENT = 4;
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int writers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 2;
+        DataStore ds = DataStore.getInstance();
+        Course[] cs = new Course[COURSES];
+        for (int i = 0; i < COURSES; i++) {
+            cs[i] = new Course.Builder(SyntheticData.courseCode(i)).credits(3).build();
+            ds.addCourse(cs[i]);
+        }
+        Student[] ss = new Student[students];
+        Random rnd = new Random(11);
+        List<Enrollment> batch = new ArrayList<>(students * PER_STUDENT);
+        for (int i = 0; i < students; i++) {
+            ss[i] = new Student("v-" + i, SyntheticData.regNo(i), "View Student " + i, "v" + i + "@example.edu");
+            ds.addStudent(ss[i]);
+            for (int k = 0; k < PER_STUDENT; k++) {
+                Enrollment e = new Enrollment(ss[i], cs[(i + k * 7) % COURSES]);
+                e.recordMarks(rnd.nextInt(101));
+                batch.add(e);
+            }
+        }
+        ds.addEnrollments(batch);
+        ds.openReadView().close(); // class loading out of the timed open
+
+        ReentrantReadWriteLock pause = new ReentrantReadWriteLock();
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder ops = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            Thread t = new Thread(() -> write(ds, ss, cs, pause, stop, ops), "writer-" + w);
+            t.setDaemon(true);
+            t.start();
+            threads.add(t);
+        }
+
+        double bare = rate(ops, seconds / 2);
+        pause.writeLock().lock();
+        ReadView view = ds.openReadView();
+        Map<Enrollment, Integer> expected = new IdentityHashMap<>();
+        ds.forEachEnrollment(e -> expected.put(e, e.getMarksValue()));
+        Map<Student, Student.Status> statuses = new IdentityHashMap<>();
+        ds.forEachStudent(s -> statuses.put(s, s.getStatus()));
+        List<Student> top = topByLiveGpa(ds, 10);
+        pause.writeLock().unlock();
+
+        double withView = rate(ops, seconds / 2);
+        long mismatches = 0;
+        Map<Enrollment, Boolean> seen = new IdentityHashMap<>();
+        long t0 = System.nanoTime();
+        List<Enrollment> rows = new ArrayList<>(expected.size());
+        view.forEachEnrollment(rows::add);
+        long scan = System.nanoTime() - t0;
+        for (Enrollment e : rows) {
+            Integer m = expected.get(e);
+            if (m == null || m != view.marksOf(e) || seen.put(e, true) != null) mismatches++;
+        }
+        mismatches += expected.size() - seen.size();
+        Map<Student, Boolean> seenStudents = new IdentityHashMap<>();
+        view.forEachStudent(s -> seenStudents.put(s, statuses.get(s) == view.statusOf(s)));
+        for (Map.Entry<Student, Student.Status> s : statuses.entrySet()) {
+            if (!Boolean.TRUE.equals(seenStudents.get(s.getKey()))) mismatches++;
+        }
+        mismatches += seenStudents.size() - statuses.size();
+        if (!view.topStudentsByGPA(10).equals(top)) mismatches++;
+
+        Path csv = Files.createTempFile("ccrm-view", ".csv");
+        long t1 = System.nanoTime();
+        long exported = new ImportExportService().exportEnrollments(view, csv);
+        long export = System.nanoTime() - t1;
+        if (exported != expected.size()) mismatches++;
+        Files.deleteIfExists(csv);
+        int undo = view.undoEntries();
+        view.close();
+
+        stop.set(true);
+        for (Thread t : threads) t.join();
+        System.out.printf("%,d students, %,d enrollments, %d writers%n", students, expected.size(), writers);
+        System.out.printf("writes: %,.0f ops/s with no view, %,.0f ops/s with a view open%n", bare, withView);
+        System.out.printf("view: scan %.1f ms, CSV export %.1f ms, %,d undo entries, open %s%n",
+                scan / 1e6, export / 1e6, undo, openTime());
+        System.out.println(mismatches == 0 ? "OK: the view kept the state it was opened at" : "FAILED: " + mismatches + " mismatches");
+        if (mismatches != 0) System.exit(1);
+    }
+
+    private static void write(DataStore ds, Student[] ss, Course[] cs, ReentrantReadWriteLock pause,
+                              AtomicBoolean stop, LongAdder ops) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        while (!stop.get()) {
+            pause.readLock().lock();
+            try {
+                Student s = ss[rnd.nextInt(ss.length)];
+                List<Enrollment> mine = ds.listEnrollmentsForStudent(s);
+                int op = rnd.nextInt(100);
+                if (op < 60 && !mine.isEmpty()) {
+                    ds.recordMarks(mine.get(rnd.nextInt(mine.size())), rnd.nextInt(101));
+                } else if (op < 90 && !mine.isEmpty()) {
+                    Enrollment e = mine.get(rnd.nextInt(mine.size()));
+                    if (ds.removeEnrollment(e)) {
+                        Course c = cs[rnd.nextInt(cs.length)];
+                        if (!s.isEnrolledIn(c)) ds.addEnrollment(new Enrollment(s, c));
+                    }
+                } else if (op < 95) {
+                    ds.deactivateStudent(s.getId());
+                } else {
+                    int n = rnd.nextInt(1 << 30);
+                    ds.addStudent(new Student("w-" + n, "W" + n, "Writer Student " + n, "w" + n + "@example.edu"));
+                }
+                ops.increment();
+            } finally {
+                pause.readLock().unlock();
+            }
+        }
+    }
+
+    private static String openTime() {
+        var h = Metrics.histogram("store.readView.open").snapshot();
+        return String.format("%.1f us", h.p50() / 1e3);
+    }
+
+    private static double rate(LongAdder ops, double seconds) throws InterruptedException {
+        long before = ops.sum(), start = System.nanoTime();
+        Thread.sleep((long) (seconds * 1000));
+        return (ops.sum() - before) / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /** The reference ranking, computed from live GPAs while writers are paused. */
+    private static List<Student> topByLiveGpa(DataStore ds, int limit) {
+        List<Student> all = ds.listStudents();
+        all.sort(Comparator.comparingDouble(Student::getGpa).reversed().thenComparing(Student::getId));
+        return new ArrayList<>(all.subList(0, Math.min(limit, all.size())));
+    }
+}
@@ -0,0 +1,157 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.DataStore;
+import edu.ccrm.domain.*;
+import edu.ccrm.exception.CourseFullException;
+import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.service.EnrollmentService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Races many threads for the last seats of capacity-limited courses and checks that no course is
+ * ever oversold:
+ * <ol>
+ * <li>rounds: {@code threads} students released together at one course with {@code seats} seats;
+ *     exactly {@code seats} must get in, the rest end up on the waitlist in arrival order;</li>
+ * <li>promotion: every seated student drops the course, and the waitlist must refill it;</li>
+ * <li>churn: for {@code seconds}, all threads enroll/unenroll at random on a few small courses
+ *     while a monitor samples seat counts.</li>
+ * </ol>
+ * Exits with status 1 if any check fails.
+ *
+ * Usage: java -cp bin edu.ccrm.bench.SeatContentionBench [threads] [seats] [rounds] [seconds]
+ */
+public final class SeatContentionBench {
+    private static final int CHURN_COURSES = 4;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int seats = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        double seconds = args.length > 3 ? Double.parseDouble(args[3]) : 3;
+        DataStore ds = DataStore.getInstance();
+        EnrollmentService es = new EnrollmentService();
+
+        Student[] students = new Student[threads];
+        for (int t = 0; t < threads; t++) {
+            students[t] = new Student("seat-" + t, "SEAT" + t, "Seat Racer " + t, "racer" + t + "@example.edu");
+            ds.addStudent(students[t]);
+        }
+
+        boolean ok = true;
+        long raceNanos = 0;
+        for (int r = 0; r < rounds; r++) {
+            Course c = new Course.Builder("RACE" + r).credits(1).capacity(seats).build();
+            ds.addCourse(c);
+            AtomicInteger enrolled = new AtomicInteger();
+            long start = System.nanoTime();
+            race(threads, t -> {
+                if (es.enrollOrWaitlist(students[t], c).isPresent()) enrolled.incrementAndGet();
+            });
+            raceNanos += System.nanoTime() - start;
+            ok &= check("round " + r, c, ds, enrolled.get() == Math.min(seats, threads)
+                    && ds.getWaitlist(c).size() == Math.max(0, threads - seats));
+
+            // drop every seated student; the waitlist should take over the seats in FIFO order
+            List<Student> queued = ds.getWaitlist(c);
+            for (Enrollment e : ds.listEnrollmentsForCourse(c.getCode())) es.unenroll(e.getStudent(), c);
+            int refill = Math.min(seats, queued.size());
+            boolean fifo = true;
+            for (int k = 0; k < refill; k++) fifo &= ds.findEnrollment(queued.get(k), c.getCode()).isPresent();
+            ok &= check("promotion " + r, c, ds, fifo && c.getSeatsTaken() == refill);
+
+            // leave the students' credits free for the next round
+            while (ds.pollWaitlist(c).isPresent()) { }
+            for (Enrollment e : ds.listEnrollmentsForCourse(c.getCode())) es.unenroll(e.getStudent(), c);
+        }
+        System.out.printf("%d rounds of %d threads racing for %d seats: %.2f ms per round%n",
+                rounds, threads, seats, raceNanos / 1e6 / Math.max(1, rounds));
+
+        Course[] churn = new Course[CHURN_COURSES];
+        for (int k = 0; k < CHURN_COURSES; k++) {
+            churn[k] = new Course.Builder("CHURN" + k).credits(1).capacity(Math.max(1, seats / 5)).build();
+            ds.addCourse(churn[k]);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean oversold = new AtomicBoolean();
+        Thread monitor = new Thread(() -> {
+            while (running.get()) {
+                for (Course c : churn) if (c.getSeatsTaken() > c.getCapacity()) oversold.set(true);
+                Thread.onSpinWait();
+            }
+        });
+        monitor.start();
+        LongAdder ops = new LongAdder(), full = new LongAdder();
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        long start = System.nanoTime();
+        race(threads, t -> {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                Course c = churn[rnd.nextInt(CHURN_COURSES)];
+                try {
+                    es.enroll(students[t], c);
+                    if (rnd.nextBoolean()) es.unenroll(students[t], c);
+                } catch (CourseFullException | DuplicateEnrollmentException rejected) {
+                    full.increment();
+                    es.unenroll(students[t], c);
+                }
+                ops.increment();
+            }
+        });
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        running.set(false);
+        monitor.join();
+        for (Course c : churn) {
+            ok &= check("churn " + c.getCode(), c, ds, !oversold.get());
+        }
+        System.out.printf("churn: %d threads, %,.0f enroll attempts/s, %,d rejected as full or duplicate%n",
+                threads, ops.sum() / elapsed, full.sum());
+        System.out.println(ok ? "OK: no course oversold" : "FAILED");
+        if (!ok) System.exit(1);
+    }
+
+    @FunctionalInterface
+    private interface Racer { void run(int thread) throws Exception; }
+
+    /** Starts {@code threads} platform threads, releases them at once and waits for all of them. */
+    private static void race(int threads, Racer body) throws InterruptedException {
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> all = new ArrayList<>(threads);
+        AtomicInteger failures = new AtomicInteger();
+        AtomicReference<Exception> first = new AtomicReference<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread th = new Thread(() -> {
+                try {
+                    go.await();
+                    body.run(id);
+                } catch (Exception ex) {
+                    failures.incrementAndGet();
+                    first.compareAndSet(null, ex);
+                }
+            });
+            th.start();
+            all.add(th);
+        }
+        go.countDown();
+        for (Thread th : all) th.join();
+        if (failures.get() > 0) throw new IllegalStateException(failures.get() + " racer(s) failed", first.get());
+    }
+
+    /** The seat counter must match the stored enrollments and stay within capacity. */
+    private static boolean check(String what, Course c, DataStore ds, boolean extra) {
+        int stored = ds.listEnrollmentsForCourse(c.getCode()).size();
+        boolean ok = extra && c.getSeatsTaken() == stored && stored <= c.getCapacity();
+        if (!ok) System.out.printf("%s: FAILED seatsTaken=%d stored=%d capacity=%d waitlist=%d%n",
+                what, c.getSeatsTaken(), stored, c.getCapacity(), ds.getWaitlist(c).size());
+        return ok;
+    }
+}
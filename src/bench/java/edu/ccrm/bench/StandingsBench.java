@@ -0,0 +1,88 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.DataStore;
+import edu.ccrm.config.ReadView;
+import edu.ccrm.domain.*;
+import edu.ccrm.service.TermStandings;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The term-close standings batch at 1, 2, 4 ... cores (up to the machine's). Loads {@code terms}
+ * FALL terms of {@value #PER_TERM} enrollments per student (one in ten left ungraded), then times
+ * {@link TermStandings#compute} for the last term on fork-join pools of each size and checks that
+ * every pool size produces the same table.
+ *
+ * Usage: java -Xmx2g -cp bin edu.ccrm.bench.StandingsBench [students] [terms]
+ */
+public final class StandingsBench {
+    private static final int PER_TERM = 5;
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int terms = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        DataStore ds = DataStore.getInstance();
+        Random rnd = new Random(5);
+        Student[] ss = new Student[students];
+        for (int i = 0; i < students; i++) {
+            ss[i] = new Student("g-" + i, SyntheticData.regNo(i), "Standing Student " + i, "g" + i + "@example.edu");
+            ds.addStudent(ss[i]);
+        }
+        int firstYear = 2000;
+        for (int y = firstYear; y < firstYear + terms; y++) {
+            Course[] cs = new Course[PER_TERM];
+            for (int k = 0; k < PER_TERM; k++) {
+                cs[k] = new Course.Builder(String.format("G%d%d", y, k)).credits(2 + k % 3).semester(Semester.FALL).build();
+                ds.addCourse(cs[k]);
+            }
+            List<Enrollment> batch = new ArrayList<>(students * PER_TERM);
+            for (Student s : ss) {
+                for (Course c : cs) {
+                    Enrollment e = new Enrollment(s, c, LocalDate.of(y, 9, 1));
+                    if (rnd.nextInt(10) != 0) e.recordMarks(35 + rnd.nextInt(66));
+                    batch.add(e);
+                }
+            }
+            ds.addEnrollments(batch);
+            ds.closeTerm(new Term(y, Semester.FALL));
+        }
+        Term last = new Term(firstYear + terms - 1, Semester.FALL);
+        System.out.printf("%,d students, %,d enrollments over %d terms; standings of %s%n",
+                students, ds.enrollmentCount(), terms, last);
+
+        String reference = null;
+        try (ReadView view = ds.openReadView()) {
+            for (int cores = 1; cores <= Runtime.getRuntime().availableProcessors(); cores *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(cores);
+                double best = Double.MAX_VALUE;
+                TermStandings table = null;
+                for (int round = 0; round < 5; round++) {
+                    long t0 = System.nanoTime();
+                    table = TermStandings.compute(view, last, pool);
+                    best = Math.min(best, (System.nanoTime() - t0) / 1e6);
+                }
+                pool.shutdown();
+                String digest = digest(table);
+                if (reference == null) reference = digest;
+                System.out.printf("%2d cores: %8.1f ms  %,12.0f enrollments/s  %s%n", cores, best,
+                        ds.enrollmentCount() / (best / 1e3), table.countByStanding());
+                if (!digest.equals(reference)) {
+                    System.out.println("FAILED: table differs from the 1-core run");
+                    System.exit(1);
+                }
+            }
+        }
+        System.out.println("OK: every pool size produced the same table");
+    }
+
+    private static String digest(TermStandings table) {
+        long[] h = {table.size()};
+        table.forEach(r -> h[0] = h[0] * 31 + r.student().getId().hashCode() * 17L + r.creditsEarned()
+                + Double.hashCode(r.termGpa()) + Double.hashCode(r.cumulativeGpa()) + r.standing().ordinal());
+        return Long.toHexString(h[0]);
+    }
+}
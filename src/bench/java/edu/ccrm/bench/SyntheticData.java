@@ -0,0 +1,168 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.DataStore;
+import edu.ccrm.domain.*;
+import edu.ccrm.io.CsvCodec;
+import edu.ccrm.io.CsvWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Deterministic synthetic data for benchmarks, seeded from the sample files in {@code test-data/}:
+ * student names are recombined from the first and last names found there, and course departments
+ * and title words come from the sample courses. Registration numbers follow the sample format
+ * ({@code REG0000001}), so generated rows look like the ones the importers see in practice.
+ *
+ * Usage (writes students.csv, courses.csv, enrollments.csv):
+ * java -cp bin edu.ccrm.bench.SyntheticData [students] [outDir] [courses] [coursesPerStudent]
+ */
+public final class SyntheticData {
+    private static final String[] FALLBACK_FIRST = {"John", "Jane", "Asha", "Ravi"};
+    private static final String[] FALLBACK_LAST = {"Doe", "Smith", "Rao", "Kumar"};
+    private static final String[] FALLBACK_DEPTS = {"CS", "MATH"};
+
+    private final String[] firstNames;
+    private final String[] lastNames;
+    private final String[] departments;
+    private final String[] titleWords;
+    private final long seed;
+
+    public static void main(String[] args) throws IOException {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path out = Paths.get(args.length > 1 ? args[1] : "test-data/synthetic");
+        int courses = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int per = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        DataStore ds = DataStore.getInstance();
+        SyntheticData gen = fromSeeds(Paths.get("test-data"), 42);
+        Dataset data = gen.populate(ds, students, courses, per);
+        gen.writeCsv(data, ds, out);
+        System.out.printf("wrote %d students, %d courses, %d enrollments to %s%n",
+                students, courses, data.enrollments(), out.toAbsolutePath());
+    }
+
+    private SyntheticData(String[] first, String[] last, String[] depts, String[] words, long seed) {
+        this.firstNames = first;
+        this.lastNames = last;
+        this.departments = depts;
+        this.titleWords = words;
+        this.seed = seed;
+    }
+
+    /** Reads name and department pools from {@code testData}; missing files fall back to built-in pools. */
+    public static SyntheticData fromSeeds(Path testData, long seed) throws IOException {
+        Set<String> first = new LinkedHashSet<>(), last = new LinkedHashSet<>();
+        for (List<String> row : rows(testData.resolve("students.csv"))) {
+            if (row.size() < 3) continue;
+            String[] parts = row.get(2).trim().split("\\s+");
+            if (parts.length >= 2) {
+                first.add(parts[0]);
+                last.add(parts[parts.length - 1]);
+            }
+        }
+        Set<String> depts = new LinkedHashSet<>(), words = new LinkedHashSet<>();
+        for (List<String> row : rows(testData.resolve("courses.csv"))) {
+            if (row.size() < 4) continue;
+            Collections.addAll(words, row.get(1).trim().split("\\s+"));
+            depts.add(row.get(3).trim());
+        }
+        return new SyntheticData(
+                first.isEmpty() ? FALLBACK_FIRST : first.toArray(String[]::new),
+                last.isEmpty() ? FALLBACK_LAST : last.toArray(String[]::new),
+                depts.isEmpty() ? FALLBACK_DEPTS : depts.toArray(String[]::new),
+                words.isEmpty() ? new String[] {"Topics"} : words.toArray(String[]::new),
+                seed);
+    }
+
+    private static List<List<String>> rows(Path csv) throws IOException {
+        List<List<String>> out = new ArrayList<>();
+        if (!Files.exists(csv)) return out;
+        List<String> lines = Files.readAllLines(csv);
+        for (int i = 1; i < lines.size(); i++) {
+            if (!lines.get(i).isBlank()) out.add(CsvCodec.parse(lines.get(i)));
+        }
+        return out;
+    }
+
+    public static String regNo(int i) { return String.format("REG%07d", i); }
+    public static String courseCode(int i) { return String.format("SYN%04d", i); }
+
+    /** Generated entities, indexed by position. */
+    public record Dataset(Student[] students, Course[] courses, long enrollments) {}
+
+    /**
+     * Adds {@code students} students and {@code courses} courses to {@code ds} and enrolls every
+     * student in {@code perStudent} distinct courses (3 credits each, so the credit limit is never hit
+     * for up to 6). Roughly 80% of enrollments are graded.
+     */
+    public Dataset populate(DataStore ds, int students, int courses, int perStudent) {
+        Random rnd = new Random(seed);
+        Semester[] semesters = Semester.values();
+        Course[] cs = new Course[courses];
+        for (int i = 0; i < courses; i++) {
+            cs[i] = new Course.Builder(courseCode(i))
+                    .title(pick(rnd, titleWords) + " " + pick(rnd, titleWords) + " " + (100 + i % 400))
+                    .credits(3)
+                    .department(pick(rnd, departments))
+                    .semester(semesters[i % semesters.length])
+                    .build();
+        }
+        ds.addCourses(Arrays.asList(cs));
+
+        Student[] ss = new Student[students];
+        for (int i = 0; i < students; i++) {
+            String first = pick(rnd, firstNames), last = pick(rnd, lastNames);
+            ss[i] = new Student("syn-" + i, regNo(i), first + " " + last,
+                    (first + "." + last + i + "@example.edu").toLowerCase(Locale.ROOT));
+        }
+        ds.addStudents(Arrays.asList(ss));
+
+        LocalDate base = LocalDate.of(2024, 8, 1);
+        List<Enrollment> batch = new ArrayList<>(4096);
+        long total = 0;
+        int per = Math.min(perStudent, courses);
+        for (Student s : ss) {
+            int start = rnd.nextInt(courses);
+            for (int j = 0; j < per; j++) {
+                Enrollment e = new Enrollment(s, cs[(start + j) % courses], base.plusDays(rnd.nextInt(30)));
+                if (rnd.nextInt(5) != 0) e.recordMarks(rnd.nextInt(101));
+                batch.add(e);
+            }
+            if (batch.size() >= 4096) {
+                ds.addEnrollments(batch);
+                total += batch.size();
+                batch.clear();
+            }
+        }
+        ds.addEnrollments(batch);
+        total += batch.size();
+        return new Dataset(ss, cs, total);
+    }
+
+    /** Writes the generated data in the {@code test-data/} CSV layouts into {@code dir}. */
+    public void writeCsv(Dataset data, DataStore ds, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        try (CsvWriter w = CsvWriter.open(dir.resolve("students.csv"))) {
+            w.header("id", "regNo", "fullName", "email");
+            for (Student s : data.students()) w.field("").field(s.getRegNo()).field(s.getFullName()).field(s.getEmail()).endRow();
+        }
+        try (CsvWriter w = CsvWriter.open(dir.resolve("courses.csv"))) {
+            w.header("code", "title", "credits", "department", "semester");
+            for (Course c : data.courses()) {
+                w.field(c.getCode()).field(c.getTitle()).field(c.getCredits()).field(c.getDepartment())
+                        .field(c.getSemester().name()).endRow();
+            }
+        }
+        try (CsvWriter w = CsvWriter.open(dir.resolve("enrollments.csv"))) {
+            w.header("regNo", "courseCode", "enrolledOn", "marks");
+            ds.forEachEnrollment(e -> w.field(e.getStudent().getRegNo()).field(e.getCourse().getCode())
+                    .field(e.getEnrolledOn()).field(e.getMarks()).endRow());
+        }
+    }
+
+    private static String pick(Random rnd, String[] pool) { return pool[rnd.nextInt(pool.length)]; }
+}
@@ -0,0 +1,100 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.DataStore;
+import edu.ccrm.domain.*;
+import edu.ccrm.service.EnrollmentService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Current-term operations against a growing history. Loads {@code years} of FALL and SPRING terms
+ * ({@value #PER_TERM} enrollments per student per term), closes every past term unless
+ * {@code --open} is given, and then times, in the current term: enroll + unenroll, the student's
+ * current-term enrollments, and a scan of the term, next to a scan of the whole history.
+ *
+ * Usage: java -Xmx2g -cp bin edu.ccrm.bench.TermHistoryBench [students] [years] [--open]
+ */
+public final class TermHistoryBench {
+    private static final int PER_TERM = 4;
+    private static final int OPS = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int years = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        boolean keepOpen = List.of(args).contains("--open");
+        DataStore ds = DataStore.getInstance();
+        EnrollmentService es = new EnrollmentService();
+        Random rnd = new Random(7);
+
+        Student[] ss = new Student[students];
+        for (int i = 0; i < students; i++) {
+            ss[i] = new Student("t-" + i, SyntheticData.regNo(i), "Term Student " + i, "t" + i + "@example.edu");
+            ds.addStudent(ss[i]);
+        }
+        Term current = Term.current();
+        int firstYear = current.year() - years;
+        long loadStart = System.nanoTime();
+        List<Term> past = new ArrayList<>();
+        for (int y = firstYear; y < current.year() + 1; y++) {
+            for (Semester sem : new Semester[] {Semester.SPRING, Semester.FALL}) {
+                Term t = new Term(y, sem);
+                if (t.compareTo(current) >= 0) continue;
+                LocalDate day = LocalDate.of(y, sem == Semester.SPRING ? 2 : 9, 1);
+                Course[] cs = termCourses(ds, t, PER_TERM);
+                List<Enrollment> batch = new ArrayList<>(4096);
+                for (Student s : ss) {
+                    for (Course c : cs) {
+                        Enrollment e = new Enrollment(s, c, day);
+                        e.recordMarks(rnd.nextInt(101));
+                        batch.add(e);
+                    }
+                    if (batch.size() >= 4096) { ds.addEnrollments(batch); batch.clear(); }
+                }
+                ds.addEnrollments(batch);
+                past.add(t);
+            }
+        }
+        long closeStart = System.nanoTime();
+        if (!keepOpen) past.forEach(ds::closeTerm);
+        System.out.printf("%,d students, %d past terms (%s), %,d enrollments; load %.1f s, close %.1f s%n",
+                students, past.size(), keepOpen ? "open" : "closed", ds.enrollmentCount(),
+                (closeStart - loadStart) / 1e9, (System.nanoTime() - closeStart) / 1e9);
+
+        Course[] now = termCourses(ds, current, PER_TERM);
+        LocalDate today = LocalDate.now();
+        for (int round = 0; round < 3; round++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < OPS; i++) {
+                Student s = ss[i % students];
+                Course c = now[i % now.length];
+                es.enroll(s, c, today);
+                es.unenroll(s, c);
+            }
+            long t1 = System.nanoTime();
+            long found = 0;
+            for (int i = 0; i < OPS; i++) found += ds.listEnrollmentsForStudent(ss[i % students], current).size();
+            long t2 = System.nanoTime();
+            long[] n = {0};
+            ds.forEachEnrollment(current, current, e -> n[0]++);
+            long t3 = System.nanoTime();
+            ds.forEachEnrollment(e -> n[0]++);
+            long t4 = System.nanoTime();
+            System.out.printf("enroll+unenroll %6.2f us | student's term %5.0f ns | term scan %6.2f ms | full scan %7.1f ms%s%n",
+                    (t1 - t0) / 1e3 / OPS, (double) (t2 - t1) / OPS, (t3 - t2) / 1e6, (t4 - t3) / 1e6,
+                    found + n[0] < 0 ? "!" : "");
+        }
+    }
+
+    private static Course[] termCourses(DataStore ds, Term t, int n) {
+        Course[] cs = new Course[n];
+        for (int k = 0; k < n; k++) {
+            cs[k] = new Course.Builder(String.format("H%d%s%d", t.year(), t.semester().name().charAt(0), k))
+                    .credits(3).semester(t.semester()).build();
+            ds.addCourse(cs[k]);
+        }
+        return cs;
+    }
+}
@@ -0,0 +1,317 @@
+package edu.ccrm.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.ccrm.config.DataStore;
+import edu.ccrm.domain.*;
+import edu.ccrm.exception.CourseFullException;
+import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.exception.TermClosedException;
+import edu.ccrm.service.*;
+import edu.ccrm.util.SearchIndex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded HTTP/JSON API over the services, built on {@code com.sun.net.httpserver}.
+ * Each request runs on its own virtual thread when the JDK has them (looked up reflectively so the
+ * code still runs on 17, where it falls back to a cached pool of daemon threads).
+ *
+ * Request parameters come from the query string or an {@code application/x-www-form-urlencoded} body.
+ *
+ * <pre>
+ * GET    /students?limit=N[&q=text]   POST /students (regNo, fullName, email)
+ * GET    /students/{regNo}            GET  /students/{regNo}/transcript[?term=2024-FALL]
+ * GET    /courses?department=D|q=text POST /courses (code, title, credits, department, semester[, capacity])
+ * GET    /courses/{code}
+ * POST   /enrollments (regNo, courseCode[, waitlist=true])      DELETE /enrollments (regNo, courseCode)
+ * PUT    /marks (regNo, courseCode, marks)
+ * GET    /reports/top?limit=N
+ * GET    /terms                       POST /terms/{term}/close
+ * </pre>
+ *
+ * A full course answers 409; with {@code waitlist=true} the student is queued instead (202).
+ * Changes to a closed term answer 409 as well.
+ */
+public final class ApiServer implements AutoCloseable {
+    private static final int DEFAULT_LIMIT = 100;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final StudentService studentService = new StudentService();
+    private final CourseService courseService = new CourseService();
+    private final EnrollmentService enrollmentService = new EnrollmentService();
+    private final DataStore ds = DataStore.getInstance();
+
+    private ApiServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /** Binds to {@code port} (0 picks a free one) and starts serving. */
+    public static ApiServer start(int port) throws IOException {
+        // the JDK server closes keep-alive connections beyond 200 idle ones, which registration-week
+        // clients then hit as resets; must be set before the first HttpServer is created
+        System.getProperties().putIfAbsent("sun.net.httpserver.maxIdleConnections", "10000");
+        HttpServer http = HttpServer.create(new InetSocketAddress(port), 1024);
+        ApiServer api = new ApiServer(http, newRequestExecutor());
+        http.createContext("/", api::handle);
+        http.setExecutor(api.executor);
+        http.start();
+        return api;
+    }
+
+    public int getPort() { return server.getAddress().getPort(); }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /** A virtual-thread-per-task executor if the running JDK has one, otherwise a cached daemon pool. */
+    public static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            AtomicInteger n = new AtomicInteger();
+            ThreadFactory daemons = r -> {
+                Thread t = new Thread(r, "ccrm-http-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            };
+            return Executors.newCachedThreadPool(daemons);
+        }
+    }
+
+    /** An error that maps directly to an HTTP status. */
+    private static final class ApiException extends RuntimeException {
+        final int status;
+        ApiException(int status, String message) { super(message); this.status = status; }
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            String method = ex.getRequestMethod();
+            String[] path = Arrays.stream(ex.getRequestURI().getPath().split("/")).filter(p -> !p.isEmpty()).toArray(String[]::new);
+            Map<String, String> params = params(ex);
+            String resource = path.length > 0 ? path[0] : "";
+            body = switch (method + " " + resource + "/" + path.length) {
+                case "GET students/1" -> students(params);
+                case "GET students/2" -> student(lookupStudent(path[1]), new JsonWriter()).toString();
+                case "GET students/3" -> {
+                    if (!path[2].equals("transcript")) throw new ApiException(404, "no such resource");
+                    yield transcript(lookupStudent(path[1]), params.get("term"));
+                }
+                case "POST students/1" -> {
+                    status = 201;
+                    yield student(studentService.createStudent(required(params, "regNo"), required(params, "fullName"),
+                            required(params, "email")), new JsonWriter()).toString();
+                }
+                case "GET courses/1" -> courses(params);
+                case "GET courses/2" -> course(lookupCourse(path[1]), new JsonWriter()).toString();
+                case "POST courses/1" -> {
+                    status = 201;
+                    Course c = courseService.createCourse(required(params, "code").toUpperCase(), params.getOrDefault("title", ""),
+                            intParam(params, "credits", 0), params.get("department"),
+                            Semester.valueOf(required(params, "semester").toUpperCase()),
+                            intParam(params, "capacity", Course.UNLIMITED));
+                    yield course(c, new JsonWriter()).toString();
+                }
+                case "POST enrollments/1" -> {
+                    Student s = lookupStudent(required(params, "regNo"));
+                    Course c = lookupCourse(required(params, "courseCode"));
+                    if (!"true".equals(params.get("waitlist"))) {
+                        status = 201;
+                        yield enrollment(enrollmentService.enroll(s, c), new JsonWriter()).toString();
+                    }
+                    Optional<Enrollment> e = enrollmentService.enrollOrWaitlist(s, c);
+                    status = e.isPresent() ? 201 : 202;
+                    yield e.isPresent() ? enrollment(e.get(), new JsonWriter()).toString()
+                            : new JsonWriter().beginObject().field("waitlisted", true)
+                                    .field("position", ds.getWaitlist(c).indexOf(s) + 1).endObject().toString();
+                }
+                case "DELETE enrollments/1" -> {
+                    boolean removed = enrollmentService.unenroll(lookupStudent(required(params, "regNo")),
+                            lookupCourse(required(params, "courseCode")));
+                    if (!removed) throw new ApiException(404, "enrollment not found");
+                    yield new JsonWriter().beginObject().field("removed", true).endObject().toString();
+                }
+                case "PUT marks/1" -> {
+                    Student s = lookupStudent(required(params, "regNo"));
+                    String code = required(params, "courseCode").toUpperCase();
+                    Enrollment e = ds.findEnrollment(s, code).orElseThrow(() -> new ApiException(404, "enrollment not found"));
+                    enrollmentService.recordMarks(e, intParam(params, "marks", -1));
+                    yield enrollment(e, new JsonWriter()).toString();
+                }
+                case "GET reports/2" -> {
+                    if (!path[1].equals("top")) throw new ApiException(404, "no such report");
+                    JsonWriter w = new JsonWriter().beginArray();
+                    for (Student s : ds.topStudentsByGPA(intParam(params, "limit", 5))) student(s, w);
+                    yield w.endArray().toString();
+                }
+                case "GET terms/1" -> terms();
+                case "POST terms/3" -> {
+                    if (!path[2].equals("close")) throw new ApiException(404, "no such resource");
+                    Term term = Term.parse(path[1]);
+                    if (!enrollmentService.closeTerm(term)) throw new ApiException(409, "term " + term + " is already closed");
+                    yield term(term, new JsonWriter()).toString();
+                }
+                default -> throw new ApiException(404, "no route for " + method + " " + ex.getRequestURI().getPath());
+            };
+        } catch (ApiException e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (DuplicateEnrollmentException | CourseFullException | TermClosedException e) {
+            status = 409;
+            body = error(e.getMessage());
+        } catch (MaxCreditLimitExceededException e) {
+            status = 422;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error(e.toString());
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String students(Map<String, String> params) {
+        int limit = intParam(params, "limit", DEFAULT_LIMIT);
+        JsonWriter w = new JsonWriter().beginArray();
+        if (params.containsKey("q")) {
+            for (SearchIndex.Hit<Student> h : studentService.search(params.get("q"), limit)) student(h.item(), w);
+            return w.endArray().toString();
+        }
+        int[] n = {0};
+        ds.forEachStudent(s -> {
+            if (n[0]++ < limit) student(s, w);
+        });
+        return w.endArray().toString();
+    }
+
+    private String courses(Map<String, String> params) {
+        String dept = params.get("department");
+        List<Course> list = params.containsKey("q")
+                ? courseService.search(params.get("q"), intParam(params, "limit", DEFAULT_LIMIT)).stream().map(SearchIndex.Hit::item).toList()
+                : dept == null ? courseService.listCourses() : courseService.findByDepartment(dept);
+        JsonWriter w = new JsonWriter().beginArray();
+        list.stream().limit(intParam(params, "limit", DEFAULT_LIMIT)).forEach(c -> course(c, w));
+        return w.endArray().toString();
+    }
+
+    private String transcript(Student s, String term) {
+        JsonWriter w = new JsonWriter().beginObject().name("student");
+        student(s, w).name("enrollments").beginArray();
+        List<Enrollment> list = term == null ? ds.listEnrollmentsForStudent(s) : ds.listEnrollmentsForStudent(s, Term.parse(term));
+        for (Enrollment e : list) enrollment(e, w);
+        return w.endArray().endObject().toString();
+    }
+
+    private String terms() {
+        JsonWriter w = new JsonWriter().beginArray();
+        for (Term t : ds.listTerms()) term(t, w);
+        return w.endArray().toString();
+    }
+
+    private static JsonWriter term(Term t, JsonWriter w) {
+        DataStore ds = DataStore.getInstance();
+        return w.beginObject().field("term", t.toString()).field("closed", ds.isTermClosed(t))
+                .field("enrollments", ds.enrollmentCount(t)).endObject();
+    }
+
+    private static JsonWriter student(Student s, JsonWriter w) {
+        return w.beginObject()
+                .field("id", s.getId()).field("regNo", s.getRegNo()).field("fullName", s.getFullName())
+                .field("email", s.getEmail()).field("status", s.getStatus().name())
+                .field("credits", s.getEnrolledCredits()).field("gpa", s.getGpa())
+                .endObject();
+    }
+
+    private static JsonWriter course(Course c, JsonWriter w) {
+        return w.beginObject()
+                .field("code", c.getCode()).field("title", c.getTitle()).field("credits", c.getCredits())
+                .field("department", c.getDepartment()).field("semester", c.getSemester().name())
+                .field("active", c.isActive()).field("capacity", c.getCapacity()).field("seatsTaken", c.getSeatsTaken())
+                .field("waitlist", DataStore.getInstance().getWaitlist(c).size())
+                .endObject();
+    }
+
+    private static JsonWriter enrollment(Enrollment e, JsonWriter w) {
+        w.beginObject()
+                .field("regNo", e.getStudent().getRegNo()).field("courseCode", e.getCourse().getCode())
+                .field("enrolledOn", e.getEnrolledOn().toString()).field("term", e.getTerm().toString()).name("marks");
+        Integer marks = e.getMarks();
+        if (marks == null) w.value((String) null); else w.value(marks);
+        return w.field("grade", e.getGrade().name()).endObject();
+    }
+
+    private static String error(String message) {
+        return new JsonWriter().beginObject().field("error", message).endObject().toString();
+    }
+
+    private Student lookupStudent(String regNo) {
+        return ds.findStudentByRegNo(regNo).orElseThrow(() -> new ApiException(404, "no student " + regNo));
+    }
+
+    private Course lookupCourse(String code) {
+        return ds.findCourseByCode(code.toUpperCase()).orElseThrow(() -> new ApiException(404, "no course " + code));
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String v = params.get(name);
+        if (v == null || v.isBlank()) throw new ApiException(400, "missing parameter " + name);
+        return v;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int dflt) {
+        String v = params.get(name);
+        if (v == null) return dflt;
+        try {
+            return Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, name + " must be an integer");
+        }
+    }
+
+    /** Query-string parameters, overlaid with a form-encoded request body if there is one. */
+    private static Map<String, String> params(HttpExchange ex) throws IOException {
+        Map<String, String> out = new HashMap<>();
+        decodeInto(ex.getRequestURI().getRawQuery(), out);
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] body = in.readAllBytes();
+            if (body.length > 0) decodeInto(new String(body, StandardCharsets.UTF_8), out);
+        }
+        return out;
+    }
+
+    private static void decodeInto(String form, Map<String, String> out) {
+        if (form == null || form.isEmpty()) return;
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            String k = eq < 0 ? pair : pair.substring(0, eq);
+            String v = eq < 0 ? "" : pair.substring(eq + 1);
+            out.put(URLDecoder.decode(k, StandardCharsets.UTF_8), URLDecoder.decode(v, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package edu.ccrm.api;
+
+/**
+ * Minimal streaming JSON writer: commas are inserted automatically between members and elements.
+ * Only what the API needs (strings, numbers, booleans, null, nested objects and arrays).
+ */
+final class JsonWriter {
+    private final StringBuilder sb = new StringBuilder(256);
+    private boolean needComma;
+
+    JsonWriter beginObject() { sep(); sb.append('{'); needComma = false; return this; }
+    JsonWriter endObject() { sb.append('}'); needComma = true; return this; }
+    JsonWriter beginArray() { sep(); sb.append('['); needComma = false; return this; }
+    JsonWriter endArray() { sb.append(']'); needComma = true; return this; }
+
+    JsonWriter name(String name) {
+        sep();
+        quote(name);
+        sb.append(':');
+        needComma = false;
+        return this;
+    }
+
+    JsonWriter value(String v) {
+        sep();
+        if (v == null) sb.append("null"); else quote(v);
+        needComma = true;
+        return this;
+    }
+
+    JsonWriter value(long v) { sep(); sb.append(v); needComma = true; return this; }
+    JsonWriter value(boolean v) { sep(); sb.append(v); needComma = true; return this; }
+
+    JsonWriter value(double v) {
+        sep();
+        if (Double.isFinite(v)) sb.append(v); else sb.append("null");
+        needComma = true;
+        return this;
+    }
+
+    JsonWriter field(String name, String v) { return name(name).value(v); }
+    JsonWriter field(String name, long v) { return name(name).value(v); }
+    JsonWriter field(String name, double v) { return name(name).value(v); }
+    JsonWriter field(String name, boolean v) { return name(name).value(v); }
+
+    private void sep() {
+        if (needComma) sb.append(',');
+    }
+
+    private void quote(String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+                    else sb.append(ch);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    @Override
+    public String toString() { return sb.toString(); }
+}
@@ -0,0 +1,246 @@
+package edu.ccrm.cli;
+
+import edu.ccrm.config.DataStore;
+import edu.ccrm.domain.*;
+import edu.ccrm.service.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Non-interactive command runner for {@code MainCLI --batch [file|-]}: one command per line,
+ * blank lines and {@code #} comments ignored, arguments split on whitespace with {@code "..."} quoting.
+ *
+ * <pre>
+ * student REG001 "Asha Rao" asha@example.edu
+ * course CS101 4 CS FALL Intro to Programming
+ * enroll REG001 CS101 [2024-09-02]
+ * marks REG001 CS101 87
+ * unenroll REG001 CS101
+ * transcript REG001
+ * top 5
+ * close-term 2024-FALL
+ * </pre>
+ *
+ * Commands that name a student are collected into batches of {@value #BATCH}; a batch is split
+ * by student, the per-student queues run in parallel (so one student's commands keep their order),
+ * and the batch's output is written in input order. Enrolls and drops on a course with a capacity
+ * also keep their order per course: the queues of every student touching it run as one, so who
+ * gets the last seats (and who comes off the waitlist) is decided by input order. The next batch
+ * is read and parsed while the previous one executes. Commands that touch more than one student
+ * ({@code course}, {@code top}, {@code close-term}) are barriers: they wait for everything before
+ * them and run alone.
+ */
+public final class BatchRunner {
+    private static final int BATCH = 4096;
+
+    private final StudentService studentService = new StudentService();
+    private final CourseService courseService = new CourseService();
+    private final EnrollmentService enrollmentService = new EnrollmentService();
+    private final TranscriptService transcriptService = new TranscriptService();
+    private final DataStore ds = DataStore.getInstance();
+    private final LongAdder failed = new LongAdder();
+
+    private record Command(int line, List<String> args) {
+        String name() { return args.get(0).toLowerCase(Locale.ROOT); }
+        String arg(int i) {
+            if (i >= args.size()) throw new IllegalArgumentException(name() + ": missing argument " + i);
+            return args.get(i);
+        }
+    }
+
+    /** Totals for one run. */
+    public record Summary(long commands, long failed, long millis) {
+        @Override public String toString() {
+            return String.format("%d commands (%d failed) in %d ms", commands, failed, millis);
+        }
+    }
+
+    public Summary run(BufferedReader in, Writer out) throws IOException {
+        long start = System.currentTimeMillis();
+        long commands = 0;
+        List<Command> batch = new ArrayList<>(BATCH);
+        CompletableFuture<String[]> inFlight = CompletableFuture.completedFuture(new String[0]);
+        String raw;
+        int lineNo = 0;
+        while ((raw = in.readLine()) != null) {
+            lineNo++;
+            String line = raw.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            commands++;
+            Command c = null;
+            String parseError = null;
+            try {
+                c = new Command(lineNo, tokenize(line));
+            } catch (IllegalArgumentException ex) {
+                failed.increment();
+                parseError = "line " + lineNo + ": error: " + ex.getMessage();
+            }
+            if (c == null || studentKey(c) == null) {
+                inFlight = submit(out, inFlight, batch);
+                batch = new ArrayList<>(BATCH);
+                writeAll(out, inFlight);
+                inFlight = CompletableFuture.completedFuture(new String[] { c == null ? parseError : execute(c) });
+            } else {
+                batch.add(c);
+                if (batch.size() == BATCH) {
+                    inFlight = submit(out, inFlight, batch);
+                    batch = new ArrayList<>(BATCH);
+                }
+            }
+        }
+        inFlight = submit(out, inFlight, batch);
+        writeAll(out, inFlight);
+        out.flush();
+        return new Summary(commands, failed.sum(), System.currentTimeMillis() - start);
+    }
+
+    /** Waits for the previous batch, writes its output, then starts {@code batch} in the background. */
+    private CompletableFuture<String[]> submit(Writer out, CompletableFuture<String[]> previous, List<Command> batch) throws IOException {
+        writeAll(out, previous);
+        if (batch.isEmpty()) return CompletableFuture.completedFuture(new String[0]);
+        return CompletableFuture.supplyAsync(() -> executeBatch(batch));
+    }
+
+    private static void writeAll(Writer out, CompletableFuture<String[]> results) throws IOException {
+        for (String r : results.join()) {
+            if (r == null) continue;
+            out.write(r);
+            out.write(System.lineSeparator());
+        }
+    }
+
+    private String[] executeBatch(List<Command> batch) {
+        // union-find over command indexes: commands sharing a student or a capped course end up in one queue
+        int[] parent = new int[batch.size()];
+        Map<String, Integer> firstOf = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            parent[i] = i;
+            Command c = batch.get(i);
+            Integer same = firstOf.putIfAbsent("s:" + studentKey(c), i);
+            if (same != null) union(parent, same, i);
+            String course = cappedCourse(c);
+            if (course != null && (same = firstOf.putIfAbsent("c:" + course, i)) != null) union(parent, same, i);
+        }
+        Map<Integer, List<Integer>> queues = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) queues.computeIfAbsent(find(parent, i), k -> new ArrayList<>()).add(i);
+        String[] results = new String[batch.size()];
+        queues.values().parallelStream().forEach(idx -> {
+            for (int i : idx) results[i] = execute(batch.get(i));
+        });
+        return results;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) i = parent[i] = parent[parent[i]];
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a), rb = find(parent, b);
+        if (ra != rb) parent[Math.max(ra, rb)] = Math.min(ra, rb);
+    }
+
+    /** The course an enroll or unenroll competes for seats in, or null if it has no capacity limit. */
+    private String cappedCourse(Command c) {
+        if (c.args().size() < 3 || !(c.name().equals("enroll") || c.name().equals("unenroll"))) return null;
+        return ds.findCourseByCode(c.arg(2).toUpperCase())
+                .filter(co -> co.getCapacity() != Course.UNLIMITED).map(Course::getCode).orElse(null);
+    }
+
+    /** The registration number a command is confined to, or null for commands that act as barriers. */
+    private static String studentKey(Command c) {
+        return switch (c.name()) {
+            case "student", "enroll", "unenroll", "marks", "transcript" -> c.args().size() > 1 ? c.arg(1) : "";
+            default -> null;
+        };
+    }
+
+    private String execute(Command c) {
+        try {
+            return switch (c.name()) {
+                case "student" -> {
+                    Student s = studentService.createStudent(c.arg(1), c.arg(2), c.arg(3));
+                    yield "student " + s.getRegNo() + " created " + s.getId();
+                }
+                case "course" -> {
+                    String title = String.join(" ", c.args().subList(Math.min(5, c.args().size()), c.args().size()));
+                    Course co = courseService.createCourse(c.arg(1).toUpperCase(), title, Integer.parseInt(c.arg(2)),
+                            c.arg(3), Semester.valueOf(c.arg(4).toUpperCase()));
+                    yield "course " + co.getCode() + " created";
+                }
+                case "enroll" -> {
+                    LocalDate on = c.args().size() > 3 ? LocalDate.parse(c.arg(3)) : LocalDate.now();
+                    Enrollment e = enrollmentService.enroll(student(c.arg(1)), course(c.arg(2)), on);
+                    yield "enrolled " + c.arg(1) + " " + e.getCourse().getCode() + " " + e.getTerm();
+                }
+                case "unenroll" -> {
+                    boolean removed = enrollmentService.unenroll(student(c.arg(1)), course(c.arg(2)));
+                    if (!removed) throw new IllegalArgumentException("not enrolled in " + c.arg(2));
+                    yield "unenrolled " + c.arg(1) + " " + c.arg(2).toUpperCase();
+                }
+                case "marks" -> {
+                    String code = c.arg(2).toUpperCase();
+                    Enrollment e = ds.findEnrollment(student(c.arg(1)), code)
+                            .orElseThrow(() -> new IllegalArgumentException("not enrolled in " + code));
+                    enrollmentService.recordMarks(e, Integer.parseInt(c.arg(3)));
+                    yield "marks " + c.arg(1) + " " + code + " " + e.getMarks() + " " + e.getGrade();
+                }
+                case "transcript" -> transcriptService.transcriptText(student(c.arg(1)));
+                case "top" -> {
+                    StringBuilder sb = new StringBuilder("Top students by GPA:");
+                    int n = c.args().size() > 1 ? Integer.parseInt(c.arg(1)) : 5;
+                    for (Student s : ds.topStudentsByGPA(n)) sb.append(System.lineSeparator()).append(s.profile());
+                    yield sb.toString();
+                }
+                case "close-term" -> {
+                    Term term = Term.parse(c.arg(1));
+                    if (!enrollmentService.closeTerm(term)) throw new IllegalArgumentException("term " + term + " is already closed");
+                    yield "term " + term + " closed: " + ds.enrollmentCount(term) + " enrollments frozen";
+                }
+                default -> throw new IllegalArgumentException("unknown command " + c.name());
+            };
+        } catch (Exception ex) {
+            failed.increment();
+            return "line " + c.line() + ": error: " + ex.getMessage();
+        }
+    }
+
+    private Student student(String regNo) {
+        return ds.findStudentByRegNo(regNo).orElseThrow(() -> new IllegalArgumentException("no student " + regNo));
+    }
+
+    private Course course(String code) {
+        return ds.findCourseByCode(code.toUpperCase()).orElseThrow(() -> new IllegalArgumentException("no course " + code));
+    }
+
+    /** Splits on whitespace; {@code "..."} groups words and {@code ""} inside quotes is a literal quote. */
+    static List<String> tokenize(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false, inToken = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch != '"') cur.append(ch);
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"') { cur.append('"'); i++; }
+                else quoted = false;
+            } else if (ch == '"') {
+                quoted = inToken = true;
+            } else if (Character.isWhitespace(ch)) {
+                if (inToken) { out.add(cur.toString()); cur.setLength(0); inToken = false; }
+            } else {
+                cur.append(ch);
+                inToken = true;
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("unterminated quote");
+        if (inToken) out.add(cur.toString());
+        return out;
+    }
+}
@@ -1,14 +1,23 @@
 package edu.ccrm.cli;
 
+import edu.ccrm.api.ApiServer;
 import edu.ccrm.config.AppConfig;
 import edu.ccrm.config.DataStore;
 import edu.ccrm.domain.*;
 import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.exception.TermClosedException;
 import edu.ccrm.io.ImportExportService;
+import edu.ccrm.io.ImportReport;
+import edu.ccrm.io.PersistenceEngine;
+import edu.ccrm.io.StandingsJob;
 import edu.ccrm.service.*;
 import edu.ccrm.util.BackupUtil;
+import edu.ccrm.util.Metrics;
 
+import java.io.*;
 import java.nio.file.*;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
@@ -19,13 +28,27 @@ public class MainCLI {
     private static final StudentService studentService = new StudentService();
     private static final CourseService courseService = new CourseService();
     private static final EnrollmentService enrollmentService = new EnrollmentService();
+    private static final TranscriptService transcriptService = new TranscriptService();
     private static final ImportExportService ioService = new ImportExportService();
     private static final DataStore ds = DataStore.getInstance();
+    private static PersistenceEngine persistence;
+    private static StandingsJob standings;
+    private static AutoCloseable metricsReporter;
+    private static final int SEARCH_RESULTS = 10;
 
     public static void main(String[] args) {
         AppConfig cfg = AppConfig.getInstance();
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(cfg, args.length > 1 ? args[1] : "-");
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            serve(cfg, args.length > 1 ? Integer.parseInt(args[1]) : 8080);
+            return;
+        }
         System.out.println("Welcome to Campus Course & Records Manager (CCRM)");
         System.out.println("Config loaded: " + cfg);
+        openPersistence(cfg);
         Scanner sc = new Scanner(System.in);
 
         mainLoop:
@@ -39,12 +62,87 @@ public class MainCLI {
                 case "4" -> importExport(sc);
                 case "5" -> backup(sc);
                 case "6" -> reports(sc);
-                case "0" -> { System.out.println("Exiting. Goodbye!"); break mainLoop; }
+                case "7" -> System.out.print("\n-- METRICS --\n" + Metrics.report());
+                case "0" -> { closePersistence(); System.out.println("Exiting. Goodbye!"); break mainLoop; }
                 default -> System.out.println("Invalid option.");
             }
         }
     }
 
+    /** Runs commands from {@code source} ({@code -} for stdin) through {@link BatchRunner} and exits. */
+    private static void runBatch(AppConfig cfg, String source) {
+        openPersistence(cfg);
+        try (BufferedReader in = source.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in), 1 << 16)
+                : Files.newBufferedReader(Paths.get(source))) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+            BatchRunner.Summary summary = new BatchRunner().run(in, out);
+            System.err.println("Batch: " + summary);
+        } catch (IOException ex) {
+            System.err.println("Batch failed: " + ex.getMessage());
+        }
+        closePersistence();
+    }
+
+    /** Serves the HTTP API until the process is stopped; the shutdown hook flushes the store. */
+    private static void serve(AppConfig cfg, int port) {
+        openPersistence(cfg);
+        try {
+            ApiServer server = ApiServer.start(port);
+            System.out.println("CCRM API listening on http://localhost:" + server.getPort());
+            Thread.currentThread().join();
+        } catch (IOException ex) {
+            System.err.println("Could not start the API: " + ex.getMessage());
+            closePersistence();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Opens the store and starts the periodic metrics line in the data folder (every mode calls this). */
+    private static void openPersistence(AppConfig cfg) {
+        try {
+            metricsReporter = Metrics.startReporter(cfg.getDataFolder(), Duration.ofMinutes(1));
+        } catch (IOException ex) {
+            System.out.println("Metrics reporter unavailable: " + ex.getMessage());
+        }
+        try {
+            persistence = PersistenceEngine.open(cfg.getDataFolder());
+            System.out.println("Store " + persistence.getRecovery());
+            Runtime.getRuntime().addShutdownHook(new Thread(MainCLI::closePersistence));
+        } catch (IOException ex) {
+            System.out.println("Persistence unavailable, running in memory only: " + ex.getMessage());
+        }
+        try {
+            standings = StandingsJob.start(DataStore.getInstance(), cfg.getDataFolder()); // after recovery: replayed closes aren't redone
+        } catch (IOException ex) {
+            System.out.println("Term standings won't be written: " + ex.getMessage());
+        }
+    }
+
+    private static synchronized void closePersistence() {
+        if (standings != null) {
+            standings.close();
+            standings = null;
+        }
+        if (metricsReporter != null) {
+            try {
+                metricsReporter.close();
+            } catch (Exception ignored) {
+                // best effort: the last metrics line is not worth failing shutdown over
+            }
+            metricsReporter = null;
+        }
+        if (persistence == null) return;
+        try {
+            persistence.sync();
+            persistence.close();
+        } catch (IOException ex) {
+            System.out.println("Failed to flush the store: " + ex.getMessage());
+        }
+        persistence = null;
+    }
+
     private static void printMainMenu() {
         System.out.println("\n--- MAIN MENU ---");
         System.out.println("1) Manage Students");
@@ -53,6 +151,7 @@ public class MainCLI {
         System.out.println("4) Import / Export");
         System.out.println("5) Backup Data");
         System.out.println("6) Reports");
+        System.out.println("7) Metrics");
         System.out.println("0) Exit");
         System.out.print("Select> ");
     }
@@ -64,6 +163,7 @@ public class MainCLI {
             System.out.println("1) Add Student");
             System.out.println("2) List Students");
             System.out.println("3) Deactivate Student");
+            System.out.println("4) Search Students");
             System.out.println("0) Back");
             System.out.print("choice> ");
             String c = sc.nextLine();
@@ -84,6 +184,13 @@ public class MainCLI {
                     studentService.deactivateStudent(id);
                     System.out.println("If exists, deactivated.");
                 }
+                case "4" -> {
+                    System.out.print("Name, regNo or email (prefix; typos tolerated): "); String q = sc.nextLine();
+                    long t0 = System.nanoTime();
+                    var hits = studentService.search(q, SEARCH_RESULTS);
+                    hits.forEach(h -> System.out.printf("%5.2f  %s%n", h.score(), h.item()));
+                    System.out.printf("%d match(es) in %.3f ms%n", hits.size(), (System.nanoTime() - t0) / 1e6);
+                }
                 case "0" -> { return; }
                 default -> System.out.println("Invalid.");
             }
@@ -95,6 +202,7 @@ public class MainCLI {
             System.out.println("\n-- COURSES --");
             System.out.println("1) Add Course");
             System.out.println("2) List Courses");
+            System.out.println("3) Search Courses");
             System.out.println("0) Back");
             System.out.print("choice> ");
             String c = sc.nextLine();
@@ -109,6 +217,13 @@ public class MainCLI {
                     System.out.println("Course created.");
                 }
                 case "2" -> courseService.listCourses().forEach(System.out::println);
+                case "3" -> {
+                    System.out.print("Title or code (prefix; typos tolerated): "); String q = sc.nextLine();
+                    long t0 = System.nanoTime();
+                    var hits = courseService.search(q, SEARCH_RESULTS);
+                    hits.forEach(h -> System.out.printf("%5.2f  %s%n", h.score(), h.item()));
+                    System.out.printf("%d match(es) in %.3f ms%n", hits.size(), (System.nanoTime() - t0) / 1e6);
+                }
                 case "0" -> { return; }
                 default -> System.out.println("Invalid.");
             }
@@ -121,6 +236,10 @@ public class MainCLI {
             System.out.println("1) Enroll student to course");
             System.out.println("2) Record marks");
             System.out.println("3) Print transcript for student");
+            System.out.println("4) Unenroll student from course");
+            System.out.println("5) List terms");
+            System.out.println("6) Close term");
+            System.out.println("7) Term standings");
             System.out.println("0) Back");
             System.out.print("choice> ");
             String c = sc.nextLine();
@@ -146,10 +265,8 @@ public class MainCLI {
                 case "2" -> {
                     System.out.print("Student RegNo: "); String reg = sc.nextLine();
                     System.out.print("Course code: "); String code = sc.nextLine().toUpperCase();
-                    var sOpt = DataStore.getInstance().findStudentByRegNo(reg);
-                    var eOpt = DataStore.getInstance().listEnrollments().stream()
-                            .filter(e -> e.getStudent().equals(sOpt.orElse(null)) && e.getCourse().getCode().equals(code))
-                            .findFirst();
+                    var eOpt = DataStore.getInstance().findStudentByRegNo(reg)
+                            .flatMap(st -> DataStore.getInstance().findEnrollment(st, code));
                     if (eOpt.isEmpty()) { System.out.println("Enrollment not found."); break; }
                     System.out.print("Marks (0-100): "); int marks = Integer.parseInt(sc.nextLine());
                     enrollmentService.recordMarks(eOpt.get(), marks);
@@ -161,6 +278,45 @@ public class MainCLI {
                     if (sOpt.isEmpty()) { System.out.println("Not found."); break; }
                     printTranscript(sOpt.get());
                 }
+                case "4" -> {
+                    System.out.print("Student RegNo: "); String reg = sc.nextLine();
+                    System.out.print("Course code: "); String code = sc.nextLine().toUpperCase();
+                    var stOpt = DataStore.getInstance().findStudentByRegNo(reg);
+                    var coOpt = DataStore.getInstance().findCourseByCode(code);
+                    if (stOpt.isEmpty() || coOpt.isEmpty()) {
+                        System.out.println("Student or Course not found.");
+                        break;
+                    }
+                    boolean removed = enrollmentService.unenroll(stOpt.get(), coOpt.get());
+                    System.out.println(removed ? "Unenrolled." : "Enrollment not found.");
+                }
+                case "5" -> {
+                    DataStore ds = DataStore.getInstance();
+                    for (Term t : ds.listTerms()) {
+                        System.out.printf("%-12s %-7s %d enrollments%n", t, ds.isTermClosed(t) ? "closed" : "open", ds.enrollmentCount(t));
+                    }
+                }
+                case "6" -> {
+                    System.out.print("Term (e.g. 2024-FALL): ");
+                    try {
+                        Term t = Term.parse(sc.nextLine());
+                        if (!enrollmentService.closeTerm(t)) System.out.println(t + " is already closed.");
+                        else System.out.println("Closed " + t + "." + (standings == null ? "" : " Standings go to " + standings.path(t)));
+                    } catch (IllegalArgumentException | TermClosedException ex) {
+                        System.out.println("Error: " + ex.getMessage());
+                    }
+                }
+                case "7" -> {
+                    System.out.print("Term (e.g. 2024-FALL): ");
+                    try {
+                        Term t = Term.parse(sc.nextLine());
+                        TermStandings table = standings != null ? standings.run(t) : TermStandings.compute(ds, t);
+                        System.out.println(table);
+                        if (standings != null) System.out.println("Written to " + standings.path(t));
+                    } catch (IllegalArgumentException | IOException ex) {
+                        System.out.println("Error: " + ex.getMessage());
+                    }
+                }
                 case "0" -> { return; }
                 default -> System.out.println("Invalid.");
             }
@@ -168,10 +324,8 @@ public class MainCLI {
     }
 
     private static void printTranscript(Student s) {
-        System.out.println("\nTranscript for: " + s.profile());
-        List<Enrollment> el = DataStore.getInstance().listEnrollmentsForStudent(s);
-        if (el.isEmpty()) System.out.println("No enrollments.");
-        else el.forEach(e -> System.out.println(e.transcriptLine()));
+        System.out.println();
+        System.out.println(transcriptService.transcriptText(s));
     }
 
     private static void importExport(Scanner sc) {
@@ -180,25 +334,42 @@ public class MainCLI {
         System.out.println("2) Import courses from test-data/courses.csv");
         System.out.println("3) Export students to exports/students.csv");
         System.out.println("4) Export courses to exports/courses.csv");
+        System.out.println("5) Import enrollments from test-data/enrollments.csv");
+        System.out.println("6) Export enrollments to exports/enrollments.csv");
+        System.out.println("7) Save binary snapshot to exports/ccrm.snap");
+        System.out.println("8) Load binary snapshot from exports/ccrm.snap");
         System.out.println("0) Back");
         System.out.print("choice> ");
         String c = sc.nextLine();
         try {
             switch (c) {
-                case "1" -> ioService.importStudents(Paths.get("test-data/students.csv"));
-                case "2" -> ioService.importCourses(Paths.get("test-data/courses.csv"));
+                case "1" -> printImportReport(ioService.importStudents(Paths.get("test-data/students.csv")));
+                case "2" -> printImportReport(ioService.importCourses(Paths.get("test-data/courses.csv")));
                 case "3" -> {
                     Path out = Paths.get("exports");
                     Files.createDirectories(out);
-                    ioService.exportStudents(out.resolve("students.csv"));
-                    System.out.println("Exported to exports/students.csv");
+                    long n = ioService.exportStudents(out.resolve("students.csv"));
+                    System.out.println("Exported " + n + " rows to exports/students.csv");
                 }
                 case "4" -> {
                     Path out = Paths.get("exports");
                     Files.createDirectories(out);
-                    ioService.exportCourses(out.resolve("courses.csv"));
-                    System.out.println("Exported to exports/courses.csv");
+                    long n = ioService.exportCourses(out.resolve("courses.csv"));
+                    System.out.println("Exported " + n + " rows to exports/courses.csv");
                 }
+                case "5" -> printImportReport(ioService.importEnrollments(Paths.get("test-data/enrollments.csv")));
+                case "6" -> {
+                    Path out = Paths.get("exports");
+                    Files.createDirectories(out);
+                    long n = ioService.exportEnrollments(out.resolve("enrollments.csv"));
+                    System.out.println("Exported " + n + " rows to exports/enrollments.csv");
+                }
+                case "7" -> {
+                    Path out = Paths.get("exports");
+                    Files.createDirectories(out);
+                    System.out.println("Saved " + ioService.saveSnapshot(out.resolve("ccrm.snap")));
+                }
+                case "8" -> System.out.println("Loaded " + ioService.loadSnapshot(Paths.get("exports", "ccrm.snap")));
                 case "0" -> { return; }
                 default -> System.out.println("Invalid.");
             }
@@ -207,23 +378,98 @@ public class MainCLI {
         }
     }
 
+    private static void printImportReport(ImportReport report) {
+        System.out.println(report);
+        report.getRejects().stream().limit(10).forEach(r -> System.out.println("  rejected " + r));
+        if (report.getRejected() > 10) System.out.println("  ... " + (report.getRejected() - 10) + " more");
+    }
+
     private static void backup(Scanner sc) {
-        try {
-            Path source = Paths.get(System.getProperty("user.dir")); // backup working dir for demo
-            Path backups = Paths.get("backups");
-            Files.createDirectories(backups);
-            Path created = BackupUtil.copyToTimestampedBackup(source, backups);
-            long size = BackupUtil.computeDirectorySize(created);
-            System.out.println("Backup created at: " + created);
-            System.out.println("Backup total size (bytes): " + size);
-        } catch (Exception ex) {
-            System.out.println("Backup failed: " + ex.getMessage());
+        Path source = AppConfig.getInstance().getDataFolder();
+        Path backups = Paths.get("backups");
+        while (true) {
+            System.out.println("\n-- BACKUP --");
+            System.out.println("1) Create Incremental Backup of " + source);
+            System.out.println("2) List Backups");
+            System.out.println("3) Restore Backup");
+            System.out.println("4) Verify Backup");
+            System.out.println("0) Back");
+            System.out.print("choice> ");
+            String c = sc.nextLine();
+            try {
+                switch (c) {
+                    case "1" -> {
+                        if (persistence != null) persistence.sync();
+                        BackupUtil.VerificationReport report = BackupUtil.incrementalBackup(source, backups);
+                        System.out.println("Backup created: " + report);
+                        report.problems().forEach(p -> System.out.println("  " + p));
+                    }
+                    case "2" -> BackupUtil.listBackups(backups).forEach(System.out::println);
+                    case "3" -> {
+                        System.out.print("Backup name: "); String name = sc.nextLine().trim();
+                        System.out.print("Restore into folder: "); Path target = Paths.get(sc.nextLine().trim());
+                        int n = BackupUtil.restore(backups, name, target);
+                        System.out.println("Restored " + n + " files into " + target.toAbsolutePath());
+                    }
+                    case "4" -> {
+                        System.out.print("Backup name: "); String name = sc.nextLine().trim();
+                        BackupUtil.VerificationReport report = BackupUtil.verifyBackup(backups, name);
+                        System.out.println(report);
+                        report.problems().forEach(p -> System.out.println("  " + p));
+                    }
+                    case "0" -> { return; }
+                    default -> System.out.println("Invalid.");
+                }
+            } catch (Exception ex) {
+                System.out.println("Backup failed: " + ex.getMessage());
+            }
         }
     }
 
     private static void reports(Scanner sc) {
         System.out.println("\n-- REPORTS --");
-        System.out.println("Top students by GPA:");
-        DataStore.getInstance().topStudentsByGPA(5).forEach(s -> System.out.println(s.profile()));
+        System.out.println("1) Top students by GPA");
+        System.out.println("2) GPA distribution");
+        System.out.println("3) Grade distribution per course");
+        System.out.println("4) Department averages");
+        System.out.println("5) Enrollments per course and semester");
+        System.out.println("0) Back");
+        System.out.print("choice> ");
+        String c = sc.nextLine();
+        if (c.equals("1")) {
+            System.out.println("Top students by GPA:");
+            DataStore.getInstance().topStudentsByGPA(5).forEach(s -> System.out.println(s.profile()));
+            return;
+        }
+        if (!c.matches("[2-5]")) return;
+        long start = System.nanoTime();
+        EnrollmentAnalytics a = EnrollmentAnalytics.capture(DataStore.getInstance());
+        long captured = System.nanoTime();
+        switch (c) {
+            case "2" -> {
+                long[] h = a.gpaHistogram();
+                long max = Math.max(1, Arrays.stream(h).max().orElse(1));
+                for (int i = 0; i < h.length; i++) {
+                    double lo = i * EnrollmentAnalytics.GPA_BUCKET;
+                    String range = i == h.length - 1 ? String.format("%.1f", lo)
+                            : String.format("%.1f-%.1f", lo, lo + EnrollmentAnalytics.GPA_BUCKET);
+                    System.out.printf("%-9s %8d %s%n", range, h[i], "#".repeat((int) (40 * h[i] / max)));
+                }
+            }
+            case "3" -> {
+                System.out.printf("%-10s %7s  %s%n", "Course", "Total", Arrays.toString(Grade.values()));
+                a.gradeDistributionByCourse().forEach(g ->
+                        System.out.printf("%-10s %7d  %s%n", g.code(), g.enrollments(), Arrays.toString(g.byGrade())));
+            }
+            case "4" -> a.departmentAverages().forEach(d -> System.out.printf(
+                    "%-10s enrollments=%d graded=%d avgMarks=%.1f avgGradePoints=%.2f%n",
+                    d.department(), d.enrollments(), d.graded(), d.averageMarks(), d.averageGradePoints()));
+            default -> {
+                a.enrollmentsPerSemester().forEach((sem, n) -> System.out.printf("%-8s %d%n", sem, n));
+                a.enrollmentsPerCourse().forEach(cc -> System.out.printf("%-10s %-8s %d%n", cc.code(), cc.semester(), cc.enrollments()));
+            }
+        }
+        System.out.printf("(%d rows: captured in %.1f ms, aggregated in %.1f ms)%n",
+                a.rowCount(), (captured - start) / 1e6, (System.nanoTime() - captured) / 1e6);
     }
 }
@@ -6,15 +6,19 @@ import java.time.Instant;
 
 /**
  * Singleton configuration for CCRM.
+ * {@code -Dccrm.asyncCommit=true} lets mutations return once their log records are buffered instead
+ * of waiting for the fsync: faster, but a crash can lose the last few acknowledged changes.
  */
 public final class AppConfig {
     private static volatile AppConfig instance;
     private final Path dataFolder;
     private final Instant startedAt;
+    private final boolean asyncCommit;
 
     private AppConfig() {
         this.dataFolder = Paths.get(System.getProperty("user.home"), "ccrm_data");
         this.startedAt = Instant.now();
+        this.asyncCommit = Boolean.getBoolean("ccrm.asyncCommit");
     }
 
     public static AppConfig getInstance() {
@@ -28,9 +32,11 @@ public final class AppConfig {
 
     public Path getDataFolder() { return dataFolder; }
     public Instant getStartedAt() { return startedAt; }
+    /** Whether the write-ahead log acknowledges mutations before they are fsynced. */
+    public boolean isAsyncCommit() { return asyncCommit; }
 
     @Override
     public String toString() {
-        return "AppConfig{dataFolder=" + dataFolder + ", startedAt=" + startedAt + "}";
+        return "AppConfig{dataFolder=" + dataFolder + ", startedAt=" + startedAt + ", asyncCommit=" + asyncCommit + "}";
     }
 }
@@ -0,0 +1,203 @@
+package edu.ccrm.config;
+
+import edu.ccrm.util.Metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, lock-free multi-producer ring of {@link StoreEvent}s feeding asynchronous subscribers.
+ * <p>
+ * Producers claim a sequence number with a CAS, write the slot and then publish the sequence in a
+ * per-slot stamp, so writers never take a lock and readers never see a half-written slot. Every
+ * subscriber runs on its own daemon thread, reads as many consecutive published slots as are
+ * ready (up to its batch size) and hands them over in one call. A producer that would overwrite a
+ * slot the slowest subscriber hasn't read yet waits for it (backpressure), so nothing is dropped.
+ * With no subscribers, {@link #publish} returns at once.
+ * <p>
+ * Events published under a student's lock (enrollments, marks) reach each subscriber in the order
+ * they were applied. Handlers must not call DataStore mutators or take student locks: the
+ * producer they would wait on may be blocked on them.
+ */
+public final class ChangeStream {
+    private static final int SPINS = 64;
+    private static final long MAX_IDLE_PARK_NANOS = 1_000_000;
+
+    private final StoreEvent[] slots;
+    private final AtomicLongArray stamps;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private volatile Subscription[] subscribers = new Subscription[0];
+    private final LongAdder published = Metrics.counter("events.published");
+    private final LongAdder stalls = Metrics.counter("events.backpressure");
+
+    /** @param capacity ring size, rounded up to a power of two */
+    public ChangeStream(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        slots = new StoreEvent[size];
+        stamps = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) stamps.set(i, -1);
+        mask = size - 1;
+        Metrics.gauge("events.ring.used", () -> {
+            Subscription[] subs = subscribers;
+            return subs.length == 0 ? 0 : claimed.get() - minCursor(subs);
+        });
+    }
+
+    public int capacity() { return slots.length; }
+    public boolean hasSubscribers() { return subscribers.length > 0; }
+
+    /** Appends the event for every current subscriber, waiting while the ring is full. */
+    public void publish(StoreEvent event) {
+        if (subscribers.length == 0) return;
+        long seq;
+        int idle = 0;
+        for (;;) {
+            Subscription[] subs = subscribers;
+            if (subs.length == 0) return;
+            long cur = claimed.get();
+            seq = cur + 1;
+            if (seq - slots.length > minCursor(subs)) {
+                if (idle++ == 0) stalls.increment();
+                backoff(idle);
+                continue;
+            }
+            if (claimed.compareAndSet(cur, seq)) break;
+        }
+        int i = (int) seq & mask;
+        slots[i] = event;
+        stamps.set(i, seq); // volatile write publishes the slot
+        published.increment();
+    }
+
+    /**
+     * Starts delivering events published from now on to {@code handler} in batches of up to
+     * {@code maxBatch}. The list passed in is only valid during the call. Exceptions from the
+     * handler are counted under {@code events.<name>.errors} and the batch is skipped; an Error
+     * also ends the subscription, which then stops holding producers back.
+     */
+    public Subscription subscribe(String name, int maxBatch, Consumer<List<StoreEvent>> handler) {
+        Subscription sub = new Subscription(name, Math.max(1, maxBatch), handler);
+        synchronized (this) {
+            // gate producers on the oldest possible position first, then start from the newest event
+            sub.cursor = Long.MIN_VALUE / 2;
+            Subscription[] subs = Arrays.copyOf(subscribers, subscribers.length + 1);
+            subs[subs.length - 1] = sub;
+            subscribers = subs;
+            sub.cursor = claimed.get();
+        }
+        Metrics.gauge("events." + name + ".lag", sub::lag);
+        sub.thread.start();
+        return sub;
+    }
+
+    private synchronized void remove(Subscription sub) {
+        Subscription[] subs = subscribers;
+        for (int k = 0; k < subs.length; k++) {
+            if (subs[k] != sub) continue;
+            Subscription[] rest = new Subscription[subs.length - 1];
+            System.arraycopy(subs, 0, rest, 0, k);
+            System.arraycopy(subs, k + 1, rest, k, subs.length - k - 1);
+            subscribers = rest;
+            return;
+        }
+    }
+
+    private static long minCursor(Subscription[] subs) {
+        long min = Long.MAX_VALUE;
+        for (Subscription s : subs) min = Math.min(min, s.cursor);
+        return min;
+    }
+
+    private static void backoff(int idle) {
+        if (idle < SPINS) Thread.onSpinWait();
+        else if (idle < 2 * SPINS) Thread.yield();
+        else LockSupport.parkNanos(Math.min(MAX_IDLE_PARK_NANOS, 1_000L << Math.min(10, idle - 2 * SPINS)));
+    }
+
+    /** One subscriber's position in the ring and the thread that delivers to it. */
+    public final class Subscription implements AutoCloseable {
+        private final String name;
+        private final int maxBatch;
+        private final Consumer<List<StoreEvent>> handler;
+        private final Thread thread;
+        private final LongAdder delivered, batches, errors;
+        private volatile long cursor; // last sequence handed to the handler
+        private volatile boolean running = true;
+
+        private Subscription(String name, int maxBatch, Consumer<List<StoreEvent>> handler) {
+            this.name = name;
+            this.maxBatch = maxBatch;
+            this.handler = handler;
+            this.delivered = Metrics.counter("events." + name + ".delivered");
+            this.batches = Metrics.counter("events." + name + ".batches");
+            this.errors = Metrics.counter("events." + name + ".errors");
+            this.thread = new Thread(this::run, "ccrm-events-" + name);
+            thread.setDaemon(true);
+        }
+
+        public String name() { return name; }
+        /** Events published but not yet delivered to this subscriber. */
+        public long lag() { return Math.max(0, claimed.get() - cursor); }
+
+        private void run() {
+            try {
+                deliver();
+            } catch (Throwable fatal) {
+                errors.increment();
+                throw fatal;
+            } finally {
+                // a dead delivery thread would stall every producer once the ring wraps: detach its cursor
+                running = false;
+                remove(this);
+            }
+        }
+
+        private void deliver() {
+            List<StoreEvent> batch = new ArrayList<>(maxBatch);
+            List<StoreEvent> view = Collections.unmodifiableList(batch);
+            int idle = 0;
+            for (;;) {
+                long next = cursor + 1;
+                for (long seq = next; batch.size() < maxBatch && stamps.get((int) seq & mask) == seq; seq++) {
+                    batch.add(slots[(int) seq & mask]);
+                }
+                if (batch.isEmpty()) {
+                    if (!running) return;
+                    backoff(idle = Math.min(idle + 1, 4 * SPINS));
+                    continue;
+                }
+                idle = 0;
+                try {
+                    handler.accept(view);
+                } catch (RuntimeException ex) {
+                    errors.increment();
+                }
+                delivered.add(batch.size());
+                batches.increment();
+                cursor = next + batch.size() - 1;
+                batch.clear();
+            }
+        }
+
+        /** Delivers what has been published so far, then stops the thread and releases the ring. */
+        @Override
+        public void close() {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            remove(this);
+        }
+    }
+}
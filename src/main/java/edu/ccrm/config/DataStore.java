@@ -1,60 +1,496 @@
 package edu.ccrm.config;
 
 import edu.ccrm.domain.*;
+import edu.ccrm.exception.TermClosedException;
+import edu.ccrm.util.LatencyHistogram;
+import edu.ccrm.util.Metrics;
+import edu.ccrm.util.SearchIndex;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 /**
  * Simple in-memory thread-safe data store (Singleton).
+ * Keeps secondary indexes (regNo, department, per-student and per-course enrollments)
+ * in step with the primary maps so lookups don't scan whole collections. Enrollments are
+ * partitioned by academic term; a closed term is frozen (see {@link #closeTerm}).
+ * Lookups count index hits and misses; one in {@value #LOOKUP_SAMPLE} is also timed, which keeps
+ * clock reads off most calls on paths that take tens of nanoseconds.
+ * Every mutation is also published on {@link #events()} for asynchronous subscribers; the ring
+ * holds {@code -Dccrm.eventRing} events (default 8192).
+ * Long reads that need one consistent state (reports, exports, snapshots) go through a
+ * {@link #openReadView() read view}; each mutation records its undo entries in the open views
+ * before applying the change.
  */
 public final class DataStore {
+    private static final int LOOKUP_SAMPLE = 64;
+    private static final Metrics.HitRate STUDENT_BY_ID = Metrics.hitRate("store.findStudentById");
+    private static final Metrics.HitRate STUDENT_BY_REGNO = Metrics.hitRate("store.findStudentByRegNo");
+    private static final Metrics.HitRate COURSE_BY_CODE = Metrics.hitRate("store.findCourseByCode");
+    private static final Metrics.HitRate ENROLLMENT = Metrics.hitRate("store.findEnrollment");
+    private static final LatencyHistogram LOOKUP_LATENCY = Metrics.histogram("store.lookup.sampled");
+    private static final LatencyHistogram VIEW_OPEN = Metrics.histogram("store.readView.open");
+    private static final ReadView[] NO_VIEWS = {};
     private static final DataStore INSTANCE = new DataStore();
     private final Map<String, Student> students = new ConcurrentHashMap<>();
     private final Map<String, Course> courses = new ConcurrentHashMap<>();
-    private final List<Enrollment> enrollments = Collections.synchronizedList(new ArrayList<>());
+    private final TermPartitions enrollments = new TermPartitions();
 
-    private DataStore() {}
+    // secondary indexes
+    private final Map<String, Student> studentsByRegNo = new ConcurrentHashMap<>();
+    private final Map<String, Set<Course>> coursesByDepartment = new ConcurrentHashMap<>();
+    // open terms only; closed terms answer course lookups from their frozen partition
+    private final Map<String, Set<Enrollment>> enrollmentsByCourse = new ConcurrentHashMap<>();
+    // FIFO waitlists of full courses, by course code (in memory only; not journaled)
+    private final Map<String, Deque<Student>> waitlists = new ConcurrentHashMap<>();
+    private final GpaLeaderboard leaderboard = new GpaLeaderboard();
+    // ids re-added as a new Student object while rows of the old one remain: their term list is not trusted
+    private final Set<String> reAddedIds = ConcurrentHashMap.newKeySet();
+    private final SearchIndex<Student> studentSearch =
+            new SearchIndex<>(Student::getFullName, s -> new String[] {s.getRegNo(), s.getEmail()});
+    private final SearchIndex<Course> courseSearch = new SearchIndex<>(Course::getTitle, c -> new String[] {c.getCode()});
+    private volatile StoreJournal journal = StoreJournal.NONE;
+    private final ChangeStream events = new ChangeStream(Integer.getInteger("ccrm.eventRing", 8192));
+    private final WriteGate gate = new WriteGate();
+    private final Object viewLock = new Object();
+    private volatile ReadView[] views = NO_VIEWS;
+
+    private DataStore() {
+        Metrics.gauge("store.students", students::size);
+        Metrics.gauge("store.courses", courses::size);
+        Metrics.gauge("store.enrollments", enrollments::size);
+        Metrics.gauge("store.readViews", () -> views.length);
+    }
 
     public static DataStore getInstance() { return INSTANCE; }
 
+    /** Installs the sink that sees every mutation (the persistence log); null detaches it. */
+    public void setJournal(StoreJournal journal) { this.journal = journal == null ? StoreJournal.NONE : journal; }
+    /**
+     * Waits until the calling thread's journaled mutations are durable (see {@link StoreJournal#commit}).
+     * Mutators commit on their own, except enrollment changes made by a thread that already holds
+     * the student's lock: that caller calls this once it has unlocked, so the wait doesn't hold the
+     * student.
+     */
+    public void commit() { journal.commit(); }
+    private void commitUnlessLocked(Student s) {
+        if (!s.getLock().isHeldByCurrentThread()) journal.commit();
+    }
+    /** Typed change events, delivered off the write path; see {@link ChangeStream}. */
+    public ChangeStream events() { return events; }
+
+    /**
+     * Opens a consistent view of the store as of now. Nothing is copied; the call waits only for
+     * mutations already in progress to finish. Close the view when done.
+     */
+    public ReadView openReadView() {
+        long start = System.nanoTime();
+        synchronized (viewLock) {
+            ReadView v = new ReadView(this, closedTermKeys()); // closed before the view: their rows are final
+            ReadView[] open = Arrays.copyOf(views, views.length + 1);
+            open[open.length - 1] = v;
+            views = open;
+            gate.flip();
+            VIEW_OPEN.recordSince(start);
+            return v;
+        }
+    }
+
+    void closeReadView(ReadView v) {
+        synchronized (viewLock) {
+            ReadView[] open = views;
+            for (int i = 0; i < open.length; i++) {
+                if (open[i] != v) continue;
+                ReadView[] next = new ReadView[open.length - 1];
+                System.arraycopy(open, 0, next, 0, i);
+                System.arraycopy(open, i + 1, next, i, next.length - i);
+                views = next.length == 0 ? NO_VIEWS : next;
+                return;
+            }
+        }
+    }
+
+    private int[] closedTermKeys() {
+        int[] keys = enrollments.termKeys();
+        int n = 0;
+        for (int k : keys) if (enrollments.isClosed(k)) keys[n++] = k;
+        return Arrays.copyOf(keys, n);
+    }
+
     // Student ops
-    public void addStudent(Student s) { students.put(s.getId(), s); }
-    public Optional<Student> findStudentById(String id) { return Optional.ofNullable(students.get(id)); }
+    public void addStudent(Student s) {
+        putStudent(s);
+        journal.commit();
+    }
+    public void addStudents(Collection<Student> batch) {
+        batch.forEach(this::putStudent);
+        journal.commit();
+    }
+    private void putStudent(Student s) {
+        int slot = gate.enter();
+        try {
+            for (ReadView v : views) v.beforeAddStudent(s, students.get(s.getId()));
+            Student previous = students.put(s.getId(), s);
+            if (previous != null && previous != s && previous.getTermKeys().length > 0) reAddedIds.add(s.getId());
+            if (previous != null && !previous.getRegNo().equals(s.getRegNo())) {
+                studentsByRegNo.remove(previous.getRegNo(), previous);
+            }
+            studentsByRegNo.put(s.getRegNo(), s);
+            studentSearch.add(s);
+            s.getLock().lock();
+            try { leaderboard.reposition(s); } finally { s.getLock().unlock(); }
+            journal.studentAdded(s);
+            events.publish(new StoreEvent.StudentAdded(s));
+        } finally { gate.exit(slot); }
+    }
+    public Optional<Student> findStudentById(String id) {
+        long t = lookupStart();
+        Student s = students.get(id);
+        lookupEnd(STUDENT_BY_ID, t, s != null);
+        return Optional.ofNullable(s);
+    }
     public Optional<Student> findStudentByRegNo(String regNo) {
-        return students.values().stream().filter(s -> s.getRegNo().equals(regNo)).findFirst();
+        long t = lookupStart();
+        Student s = studentsByRegNo.get(regNo);
+        lookupEnd(STUDENT_BY_REGNO, t, s != null);
+        return Optional.ofNullable(s);
     }
     public List<Student> listStudents() { return new ArrayList<>(students.values()); }
+    /** Weakly consistent walk over all students without copying the map. */
+    public void forEachStudent(Consumer<? super Student> action) { students.values().forEach(action); }
+    public int studentCount() { return students.size(); }
+    public boolean deactivateStudent(String id) {
+        Student s = students.get(id);
+        if (s == null) return false;
+        int slot = gate.enter();
+        s.getLock().lock();
+        try {
+            for (ReadView v : views) v.beforeDeactivate(s);
+            s.deactivate();
+            s.markChanged();
+        } finally {
+            s.getLock().unlock();
+            gate.exit(slot);
+        }
+        journal.studentDeactivated(id);
+        events.publish(new StoreEvent.StudentDeactivated(id));
+        journal.commit();
+        return true;
+    }
 
     // Course ops
-    public void addCourse(Course c) { courses.put(c.getCode(), c); }
-    public Optional<Course> findCourseByCode(String code) { return Optional.ofNullable(courses.get(code)); }
+    public void addCourse(Course c) {
+        putCourse(c);
+        journal.commit();
+    }
+    public void addCourses(Collection<Course> batch) {
+        batch.forEach(this::putCourse);
+        journal.commit();
+    }
+    private void putCourse(Course c) {
+        int slot = gate.enter();
+        try {
+            for (ReadView v : views) v.beforeAddCourse(c, courses.get(c.getCode()));
+            Course previous = courses.put(c.getCode(), c);
+            if (previous != null) {
+                Set<Course> old = coursesByDepartment.get(departmentKey(previous.getDepartment()));
+                if (old != null) old.remove(previous);
+            }
+            coursesByDepartment.computeIfAbsent(departmentKey(c.getDepartment()), k -> ConcurrentHashMap.newKeySet()).add(c);
+            courseSearch.add(c);
+            journal.courseAdded(c);
+            events.publish(new StoreEvent.CourseAdded(c));
+        } finally { gate.exit(slot); }
+    }
+    public Optional<Course> findCourseByCode(String code) {
+        long t = lookupStart();
+        Course c = courses.get(code);
+        lookupEnd(COURSE_BY_CODE, t, c != null);
+        return Optional.ofNullable(c);
+    }
     public List<Course> listCourses() { return new ArrayList<>(courses.values()); }
+    public void forEachCourse(Consumer<? super Course> action) { courses.values().forEach(action); }
     public List<Course> searchCoursesByDepartment(String dept) {
-        return courses.values().stream().filter(c -> c.getDepartment().equalsIgnoreCase(dept)).collect(Collectors.toList());
+        Set<Course> hits = coursesByDepartment.get(departmentKey(dept));
+        return hits == null ? List.of() : new ArrayList<>(hits);
+    }
+    /** Type-ahead search over name, regNo and email; best matches first (replaced students are skipped). */
+    public List<SearchIndex.Hit<Student>> searchStudents(String query, int limit) {
+        return studentSearch.search(query, limit, s -> students.get(s.getId()) == s);
+    }
+    /** Type-ahead search over title and code; best matches first. */
+    public List<SearchIndex.Hit<Course>> searchCourses(String query, int limit) {
+        return courseSearch.search(query, limit, c -> courses.get(c.getCode()) == c);
+    }
+    public boolean deactivateCourse(String code) {
+        Course c = courses.get(code);
+        if (c == null) return false;
+        int slot = gate.enter();
+        try {
+            for (ReadView v : views) v.beforeDeactivate(c);
+            c.deactivate();
+        } finally { gate.exit(slot); }
+        journal.courseDeactivated(code);
+        events.publish(new StoreEvent.CourseDeactivated(code));
+        journal.commit();
+        return true;
     }
 
     // Enrollment ops
-    public void addEnrollment(Enrollment e) { enrollments.add(e); }
-    public List<Enrollment> listEnrollments() { return new ArrayList<>(enrollments); }
+    /**
+     * Stores the enrollment and updates the student's course set and credit total under the student's lock.
+     * The course seat is counted without a capacity check (restores and admin loads); capacity-checked
+     * enrolls take the seat with {@link Course#tryTakeSeat()} first and pass {@code seatTaken}.
+     * @throws TermClosedException if the enrollment's term is closed (the seat is given back)
+     */
+    public void addEnrollment(Enrollment e) { addEnrollment(e, false); }
+    public void addEnrollment(Enrollment e, boolean seatTaken) {
+        putEnrollment(e, seatTaken);
+        commitUnlessLocked(e.getStudent());
+    }
+    private void putEnrollment(Enrollment e, boolean seatTaken) {
+        Student s = e.getStudent();
+        Course c = e.getCourse();
+        if (!seatTaken) c.takeSeat();
+        int slot = gate.enter();
+        s.getLock().lock();
+        try {
+            enrollments.write(e.getTermKey(), s.getId(), store -> {
+                for (ReadView v : views) v.beforeEnroll(e);
+                s.enrollCourse(c.getCodeId(), e.getTermKey(), c.getCredits());
+                store.add(e);
+                enrollmentsByCourse.computeIfAbsent(c.getCode(), k -> ConcurrentHashMap.newKeySet()).add(e);
+                journal.enrolled(e);
+                events.publish(new StoreEvent.Enrolled(e));
+                return null;
+            });
+            s.markChanged();
+        } catch (TermClosedException ex) {
+            c.releaseSeat();
+            throw ex;
+        } finally {
+            s.getLock().unlock();
+            gate.exit(slot);
+        }
+    }
+    /**
+     * Bulk add of enrollments that may already carry marks (recorded before they were added): each
+     * touched student is repositioned on the leaderboard once per batch instead of once per grade,
+     * and the journal is committed once for the whole batch. Rows whose term is closed are skipped
+     * (their seats given back) and returned. If a row fails otherwise, the seats of that row (unless
+     * stored) and of the rows after it are given back before the exception propagates.
+     */
+    public List<Enrollment> addEnrollments(Collection<Enrollment> batch) { return addEnrollments(batch, false); }
+    public List<Enrollment> addEnrollments(Collection<Enrollment> batch, boolean seatsTaken) {
+        List<Enrollment> closed = new ArrayList<>();
+        Set<Student> graded = Collections.newSetFromMap(new IdentityHashMap<>());
+        Iterator<Enrollment> it = batch.iterator();
+        try {
+            while (it.hasNext()) {
+                Enrollment e = it.next();
+                try {
+                    putEnrollment(e, seatsTaken);
+                } catch (TermClosedException ex) {
+                    closed.add(e);
+                    continue;
+                } catch (RuntimeException ex) {
+                    boolean stored = enrollments.forStudent(e.getStudent().getId(), e.getTermKey()).contains(e);
+                    if (!stored) e.getCourse().releaseSeat();
+                    if (seatsTaken) it.forEachRemaining(rest -> rest.getCourse().releaseSeat());
+                    throw ex;
+                }
+                int marks = e.getMarksValue();
+                if (marks != Enrollment.NO_MARKS) {
+                    journal.marksRecorded(e, marks);
+                    events.publish(new StoreEvent.MarksRecorded(e, marks));
+                    graded.add(e.getStudent());
+                }
+            }
+        } finally {
+            for (Student s : graded) {
+                s.getLock().lock();
+                try { leaderboard.reposition(s); } finally { s.getLock().unlock(); }
+            }
+            if (batch.isEmpty()) journal.commit();
+            else commitUnlessLocked(batch.iterator().next().getStudent());
+        }
+        return closed;
+    }
+    public boolean removeEnrollment(Enrollment e) {
+        Student s = e.getStudent();
+        Course c = e.getCourse();
+        int slot = gate.enter();
+        s.getLock().lock();
+        boolean removed;
+        try {
+            removed = enrollments.write(e.getTermKey(), s.getId(), store -> {
+                ReadView[] open = views;
+                if (open.length > 0 && store.forStudent(s.getId()).contains(e)) {
+                    for (ReadView v : open) v.beforeUnenroll(e);
+                }
+                if (!store.remove(e)) return false;
+                c.releaseSeat();
+                s.unenrollCourse(c.getCodeId(), e.getTermKey(), c.getCredits());
+                if (e.isGraded()) {
+                    e.retractGrade();
+                    leaderboard.reposition(s);
+                }
+                Set<Enrollment> byCourse = enrollmentsByCourse.get(c.getCode());
+                if (byCourse != null) byCourse.remove(e);
+                journal.unenrolled(e);
+                events.publish(new StoreEvent.Unenrolled(e));
+                s.markChanged();
+                return true;
+            });
+        } finally {
+            s.getLock().unlock();
+            gate.exit(slot);
+        }
+        commitUnlessLocked(s);
+        return removed;
+    }
+
+    // Waitlist ops
+    /** Appends the student to the course's waitlist; false if already on it. */
+    public boolean joinWaitlist(Course c, Student s) {
+        Deque<Student> q = waitlists.computeIfAbsent(c.getCode(), k -> new ConcurrentLinkedDeque<>());
+        synchronized (q) {
+            if (q.contains(s)) return false;
+            return q.offerLast(s);
+        }
+    }
+    /** Removes and returns the student at the head of the course's waitlist. */
+    public Optional<Student> pollWaitlist(Course c) {
+        Deque<Student> q = waitlists.get(c.getCode());
+        return Optional.ofNullable(q == null ? null : q.pollFirst());
+    }
+    /** Puts a polled student back at the head (the seat they were promoted into was taken first). */
+    public void requeueWaitlistHead(Course c, Student s) {
+        waitlists.computeIfAbsent(c.getCode(), k -> new ConcurrentLinkedDeque<>()).offerFirst(s);
+    }
+    public boolean leaveWaitlist(Course c, Student s) {
+        Deque<Student> q = waitlists.get(c.getCode());
+        return q != null && q.remove(s);
+    }
+    /** The course's waitlist in promotion order. */
+    public List<Student> getWaitlist(Course c) {
+        Deque<Student> q = waitlists.get(c.getCode());
+        return q == null ? List.of() : new ArrayList<>(q);
+    }
+
+    /** Copies every enrollment; prefer {@link #forEachEnrollment} for full scans. */
+    public List<Enrollment> listEnrollments() {
+        List<Enrollment> all = new ArrayList<>(enrollments.size());
+        enrollments.forEach(all::add);
+        return all;
+    }
+    /** Weakly consistent walk over all enrollments without copying the store. */
+    public void forEachEnrollment(Consumer<? super Enrollment> action) { enrollments.forEach(action); }
+    /** Walks the enrollments of the terms from {@code from} to {@code to}, skipping every other partition. */
+    public void forEachEnrollment(Term from, Term to, Consumer<? super Enrollment> action) {
+        enrollments.forEach(from.key(), to.key(), action);
+    }
+    public int enrollmentCount() { return enrollments.size(); }
+    public int enrollmentCount(Term term) { return enrollments.size(term.key()); }
+    /**
+     * All terms, oldest first; only the student's own terms' partitions are visited. A student re-added
+     * under an existing id starts with no terms while the earlier object's rows stay, so for those ids
+     * every partition is checked.
+     */
     public List<Enrollment> listEnrollmentsForStudent(Student s) {
-        return enrollments.stream().filter(e -> e.getStudent().getId().equals(s.getId())).collect(Collectors.toList());
+        int[] terms = reAddedIds.contains(s.getId()) ? enrollments.termKeys() : s.getTermKeys();
+        return enrollments.forStudent(s.getId(), terms);
+    }
+    public List<Enrollment> listEnrollmentsForStudent(Student s, Term term) { return enrollments.forStudent(s.getId(), term.key()); }
+    public List<Enrollment> listEnrollmentsForTerm(Term term) {
+        List<Enrollment> out = new ArrayList<>(enrollments.size(term.key()));
+        enrollments.forEach(term.key(), term.key(), out::add);
+        return out;
+    }
+    public List<Enrollment> listEnrollmentsForCourse(String courseCode) {
+        Set<Enrollment> le = enrollmentsByCourse.get(courseCode);
+        int id = Course.knownCodeId(courseCode);
+        List<Enrollment> out = id < 0 ? new ArrayList<>() : enrollments.closedForCourse(id);
+        if (le != null) out.addAll(le);
+        return out;
+    }
+
+    // Term ops
+    /** Terms that have enrollments or were closed, oldest first. */
+    public List<Term> listTerms() {
+        List<Term> out = new ArrayList<>();
+        for (int k : enrollments.termKeys()) out.add(Term.ofKey(k));
+        return out;
+    }
+    public boolean isTermClosed(Term term) { return enrollments.isClosed(term.key()); }
+    public boolean isTermClosed(int termKey) { return enrollments.isClosed(termKey); }
+    /**
+     * Freezes the term's enrollments into an immutable, compacted partition. Afterwards they can't be
+     * added, dropped or re-graded, they no longer hold course seats, and course lookups read them from
+     * the frozen partition. Returns false if the term was already closed.
+     */
+    public boolean closeTerm(Term term) {
+        FrozenTerm frozen = enrollments.close(term.key());
+        if (frozen == null) return false;
+        frozen.forEach(e -> {
+            e.getCourse().releaseSeat();
+            Set<Enrollment> byCourse = enrollmentsByCourse.get(e.getCourse().getCode());
+            if (byCourse != null) byCourse.remove(e);
+        });
+        journal.termClosed(term);
+        events.publish(new StoreEvent.TermClosed(term));
+        journal.commit();
+        return true;
+    }
+    /**
+     * Records marks and moves the student to their new GPA slot in the leaderboard.
+     * @throws TermClosedException if the enrollment's term is closed
+     */
+    public void recordMarks(Enrollment e, int marks) {
+        Student s = e.getStudent();
+        int slot = gate.enter();
+        s.getLock().lock();
+        try {
+            enrollments.write(e.getTermKey(), s.getId(), store -> {
+                for (ReadView v : views) v.beforeMarks(e);
+                e.recordMarks(marks);
+                leaderboard.reposition(s);
+                journal.marksRecorded(e, marks);
+                events.publish(new StoreEvent.MarksRecorded(e, marks));
+                s.markChanged();
+                return null;
+            });
+        } finally {
+            s.getLock().unlock();
+            gate.exit(slot);
+        }
+        commitUnlessLocked(s);
+    }
+    public Optional<Enrollment> findEnrollment(Student s, String courseCode) {
+        long t = lookupStart();
+        Enrollment found = null;
+        for (Enrollment e : listEnrollmentsForStudent(s)) {
+            if (e.getCourse().getCode().equals(courseCode)) { found = e; break; }
+        }
+        lookupEnd(ENROLLMENT, t, found != null);
+        return Optional.ofNullable(found);
+    }
+
+    // Top students by average grade points, read off the incrementally maintained leaderboard in O(limit)
+    public List<Student> topStudentsByGPA(int limit) { return leaderboard.top(limit); }
+
+    private static long lookupStart() {
+        return ThreadLocalRandom.current().nextInt(LOOKUP_SAMPLE) == 0 ? System.nanoTime() : 0;
     }
 
-    // Example stream-based report: top students by average grade points
-    public List<Student> topStudentsByGPA(int limit) {
-        return students.values().stream()
-            .sorted((a,b) -> Double.compare(averageGpa(b), averageGpa(a)))
-            .limit(limit)
-            .collect(Collectors.toList());
+    private static void lookupEnd(Metrics.HitRate rate, long start, boolean found) {
+        rate.record(found);
+        if (start != 0) LOOKUP_LATENCY.recordSince(start);
     }
 
-    private double averageGpa(Student s) {
-        List<Enrollment> le = listEnrollmentsForStudent(s);
-        return le.stream()
-            .filter(en -> en.getMarks() != null)
-            .mapToInt(en -> en.getGrade().getPoints())
-            .average()
-            .orElse(0.0);
+    private static String departmentKey(String dept) {
+        return dept == null ? "" : dept.toLowerCase(Locale.ROOT);
     }
 }
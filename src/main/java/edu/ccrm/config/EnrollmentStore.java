@@ -0,0 +1,130 @@
+package edu.ccrm.config;
+
+import edu.ccrm.domain.Enrollment;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Enrollment storage sharded by student id.
+ * Each student's enrollments sit in a small copy-on-write array; appends and removals for one
+ * student only lock that student's bin, so writers for different students never contend.
+ * Iteration walks the shards in place and is weakly consistent (never throws, never copies).
+ */
+final class EnrollmentStore implements Iterable<Enrollment> {
+    private static final Enrollment[] EMPTY = new Enrollment[0];
+
+    private final Shard[] shards;
+    private final int mask;
+
+    private static final class Shard {
+        final ConcurrentHashMap<String, Enrollment[]> byStudent = new ConcurrentHashMap<>();
+        final LongAdder size = new LongAdder();
+    }
+
+    EnrollmentStore() { this(Runtime.getRuntime().availableProcessors() * 4); }
+
+    EnrollmentStore(int minShards) {
+        int n = Integer.highestOneBit(Math.max(1, minShards - 1)) << 1;
+        this.shards = new Shard[n];
+        for (int i = 0; i < n; i++) shards[i] = new Shard();
+        this.mask = n - 1;
+    }
+
+    private Shard shardFor(String studentId) {
+        int h = studentId.hashCode();
+        return shards[(h ^ (h >>> 16)) & mask];
+    }
+
+    void add(Enrollment e) {
+        Shard shard = shardFor(e.getStudent().getId());
+        shard.byStudent.compute(e.getStudent().getId(), (k, arr) -> {
+            if (arr == null) return new Enrollment[] { e };
+            Enrollment[] next = Arrays.copyOf(arr, arr.length + 1);
+            next[arr.length] = e;
+            return next;
+        });
+        shard.size.increment();
+    }
+
+    boolean remove(Enrollment e) {
+        Shard shard = shardFor(e.getStudent().getId());
+        boolean[] removed = {false};
+        shard.byStudent.computeIfPresent(e.getStudent().getId(), (k, arr) -> {
+            for (int i = 0; i < arr.length; i++) {
+                if (arr[i] != e) continue;
+                removed[0] = true;
+                if (arr.length == 1) return null;
+                Enrollment[] next = new Enrollment[arr.length - 1];
+                System.arraycopy(arr, 0, next, 0, i);
+                System.arraycopy(arr, i + 1, next, i, arr.length - i - 1);
+                return next;
+            }
+            return arr;
+        });
+        if (removed[0]) shard.size.decrement();
+        return removed[0];
+    }
+
+    /** Read-only view over the student's enrollments at the time of the call. */
+    List<Enrollment> forStudent(String studentId) {
+        Enrollment[] arr = shardFor(studentId).byStudent.getOrDefault(studentId, EMPTY);
+        return arr.length == 0 ? List.of() : Collections.unmodifiableList(Arrays.asList(arr));
+    }
+
+    int shardCount() { return shards.length; }
+    /** The shard's size counter; equals {@link #storedIn} whenever no write is in flight. */
+    long countedIn(int shard) { return shards[shard].size.sum(); }
+    /** Enrollments actually held by the shard, by walking it. */
+    long storedIn(int shard) {
+        long n = 0;
+        for (Enrollment[] arr : shards[shard].byStudent.values()) n += arr.length;
+        return n;
+    }
+
+    int size() {
+        long total = 0;
+        for (Shard s : shards) total += s.size.sum();
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Enrollment> action) {
+        for (Shard s : shards) {
+            for (Enrollment[] arr : s.byStudent.values()) {
+                for (Enrollment e : arr) action.accept(e);
+            }
+        }
+    }
+
+    @Override
+    public Iterator<Enrollment> iterator() {
+        return new Iterator<>() {
+            private int shard = 0;
+            private Iterator<Enrollment[]> students = shards[0].byStudent.values().iterator();
+            private Enrollment[] current = EMPTY;
+            private int pos = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (pos >= current.length) {
+                    while (!students.hasNext()) {
+                        if (++shard >= shards.length) return false;
+                        students = shards[shard].byStudent.values().iterator();
+                    }
+                    current = students.next();
+                    pos = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public Enrollment next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return current[pos++];
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package edu.ccrm.config;
+
+import edu.ccrm.domain.Enrollment;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Immutable, compacted enrollments of a closed term. Rows are packed into one array grouped by
+ * student (ordered by id hash, then id) with parallel {@code int[]}/{@code String[]} offset columns,
+ * plus a second array of the same rows grouped by course id. A lookup is a binary search over ints
+ * rather than a hash-map probe, and the per-row cost is two references instead of a map node and
+ * a per-student array.
+ */
+final class FrozenTerm {
+    private static final Comparator<Enrollment> BY_STUDENT = Comparator
+            .comparingInt((Enrollment e) -> e.getStudent().getId().hashCode())
+            .thenComparing(e -> e.getStudent().getId());
+
+    final int term;
+    private final Enrollment[] rows;
+    private final int[] studentHash;
+    private final String[] studentIds;
+    private final int[] studentStart;
+    private final Enrollment[] byCourse;
+    private final int[] courseIds;
+    private final int[] courseStart;
+
+    /** Packs the rows of an open partition that no longer changes. */
+    FrozenTerm(int term, EnrollmentStore open) {
+        this.term = term;
+        Enrollment[] all = new Enrollment[open.size()];
+        int[] n = {0};
+        open.forEach(e -> {
+            if (n[0] == all.length) return;
+            all[n[0]++] = e;
+        });
+        rows = n[0] == all.length ? all : Arrays.copyOf(all, n[0]);
+        Arrays.sort(rows, BY_STUDENT); // stable: each student's rows keep their order
+
+        int students = 0;
+        for (int i = 0; i < rows.length; i++) if (i == 0 || !sameStudent(rows[i - 1], rows[i])) students++;
+        studentHash = new int[students];
+        studentIds = new String[students];
+        studentStart = new int[students + 1];
+        for (int i = 0, s = -1; i < rows.length; i++) {
+            if (i > 0 && sameStudent(rows[i - 1], rows[i])) continue;
+            String id = rows[i].getStudent().getId();
+            studentHash[++s] = id.hashCode();
+            studentIds[s] = id;
+            studentStart[s] = i;
+        }
+        studentStart[students] = rows.length;
+
+        byCourse = rows.clone();
+        Arrays.sort(byCourse, Comparator.comparingInt(e -> e.getCourse().getCodeId()));
+        int courses = 0;
+        for (int i = 0; i < byCourse.length; i++) if (i == 0 || courseId(byCourse[i - 1]) != courseId(byCourse[i])) courses++;
+        courseIds = new int[courses];
+        courseStart = new int[courses + 1];
+        for (int i = 0, c = -1; i < byCourse.length; i++) {
+            if (i > 0 && courseId(byCourse[i - 1]) == courseId(byCourse[i])) continue;
+            courseIds[++c] = courseId(byCourse[i]);
+            courseStart[c] = i;
+        }
+        courseStart[courses] = byCourse.length;
+    }
+
+    private static boolean sameStudent(Enrollment a, Enrollment b) { return a.getStudent().getId().equals(b.getStudent().getId()); }
+    private static int courseId(Enrollment e) { return e.getCourse().getCodeId(); }
+
+    List<Enrollment> forStudent(String studentId) {
+        int h = studentId.hashCode();
+        int i = Arrays.binarySearch(studentHash, h);
+        if (i < 0) return List.of();
+        while (i > 0 && studentHash[i - 1] == h) i--;
+        for (; i < studentHash.length && studentHash[i] == h; i++) {
+            if (studentIds[i].equals(studentId)) return view(rows, studentStart[i], studentStart[i + 1]);
+        }
+        return List.of();
+    }
+
+    List<Enrollment> forCourse(int codeId) {
+        int i = Arrays.binarySearch(courseIds, codeId);
+        return i < 0 ? List.of() : view(byCourse, courseStart[i], courseStart[i + 1]);
+    }
+
+    private static List<Enrollment> view(Enrollment[] arr, int from, int to) {
+        return Collections.unmodifiableList(Arrays.asList(arr).subList(from, to));
+    }
+
+    void forEach(Consumer<? super Enrollment> action) { for (Enrollment e : rows) action.accept(e); }
+    int size() { return rows.length; }
+    int studentCount() { return studentIds.length; }
+}
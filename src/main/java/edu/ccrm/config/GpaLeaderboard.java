@@ -0,0 +1,57 @@
+package edu.ccrm.config;
+
+import edu.ccrm.domain.Student;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Students ordered by GPA (highest first, ties by id) in a concurrent skip list.
+ * A GPA change costs O(log S); reading the top K walks the head of the list in O(K).
+ * Callers reposition a student while holding that student's lock, so updates for one
+ * student never interleave.
+ */
+final class GpaLeaderboard {
+    private record Entry(double gpa, String id, Student student) {}
+
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int byGpa = Double.compare(b.gpa, a.gpa);
+        return byGpa != 0 ? byGpa : a.id.compareTo(b.id);
+    };
+
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+
+    /** Inserts or moves the student to the slot for their current GPA. */
+    void reposition(Student s) {
+        double gpa = s.getGpa();
+        Entry previous = current.get(s.getId());
+        if (previous != null && previous.student() == s && previous.gpa() == gpa) return;
+        Entry next = new Entry(gpa, s.getId(), s);
+        current.put(s.getId(), next);
+        if (previous != null && ORDER.compare(previous, next) == 0) {
+            ranking.remove(previous); // same slot, different Student object: swap in place
+            ranking.add(next);
+            return;
+        }
+        // add before remove: a concurrent reader may briefly see the student twice, never zero times
+        ranking.add(next);
+        if (previous != null) ranking.remove(previous);
+    }
+
+    void remove(Student s) {
+        Entry previous = current.remove(s.getId());
+        if (previous != null) ranking.remove(previous);
+    }
+
+    List<Student> top(int limit) {
+        List<Student> out = new ArrayList<>(Math.min(limit, 64));
+        Set<String> seen = new HashSet<>();
+        for (Entry e : ranking) {
+            if (out.size() >= limit) break;
+            if (seen.add(e.id())) out.add(e.student());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,205 @@
+package edu.ccrm.config;
+
+import edu.ccrm.domain.*;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A point-in-time view of the store for reports, exports and snapshots that walk everything while
+ * writers carry on. Opening one copies nothing and writers never wait on it: reads go to the live
+ * collections, and while the view is open every mutation first records in it what it is about to
+ * change (undo entries: new students, courses and enrollments to hide, dropped enrollments and
+ * deactivations to undo, overwritten marks). Reads take the live value first and then the undo
+ * entries, so a change racing with a read still comes out as the state at opening.
+ *
+ * Undo entries pile up for as long as the view is open; close it (try-with-resources) when done.
+ * Course seats and instructors are read live; closed terms are those closed when the view opened.
+ */
+public final class ReadView implements AutoCloseable {
+    private final DataStore ds;
+    private final Instant openedAt = Instant.now();
+    private final int[] closedTerms;
+    // students, courses and enrollments created since opening
+    private final Set<Object> added = ConcurrentHashMap.newKeySet();
+    // students and courses that were active at opening and have been deactivated since
+    private final Set<Object> deactivated = ConcurrentHashMap.newKeySet();
+    private final Map<String, Student> replacedStudents = new ConcurrentHashMap<>();
+    private final Map<String, Course> replacedCourses = new ConcurrentHashMap<>();
+    // by student id; appended under that student's lock
+    private final Map<String, List<Enrollment>> dropped = new ConcurrentHashMap<>();
+    private final Map<Enrollment, Integer> overwrittenMarks = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    ReadView(DataStore ds, int[] closedTerms) {
+        this.ds = ds;
+        this.closedTerms = closedTerms;
+    }
+
+    // undo hooks, called by DataStore before it applies the change
+
+    void beforeAddStudent(Student s, Student replaced) {
+        added.add(s);
+        if (replaced != null && !added.contains(replaced)) replacedStudents.putIfAbsent(s.getId(), replaced);
+    }
+
+    void beforeDeactivate(Student s) {
+        if (s.getStatus() == Student.Status.ACTIVE && !added.contains(s)) deactivated.add(s);
+    }
+
+    void beforeAddCourse(Course c, Course replaced) {
+        added.add(c);
+        if (replaced != null && !added.contains(replaced)) replacedCourses.putIfAbsent(c.getCode(), replaced);
+    }
+
+    void beforeDeactivate(Course c) {
+        if (c.isActive() && !added.contains(c)) deactivated.add(c);
+    }
+
+    void beforeEnroll(Enrollment e) { added.add(e); }
+
+    void beforeUnenroll(Enrollment e) {
+        if (!added.contains(e)) dropped.computeIfAbsent(e.getStudent().getId(), k -> new CopyOnWriteArrayList<>()).add(e);
+    }
+
+    void beforeMarks(Enrollment e) {
+        if (!added.contains(e)) overwrittenMarks.putIfAbsent(e, e.getMarksValue());
+    }
+
+    // reads
+
+    public Instant openedAt() { return openedAt; }
+
+    /** Students as of opening (a student replaced since by one with the same id appears as the original). */
+    public void forEachStudent(Consumer<? super Student> action) {
+        ds.forEachStudent(s -> {
+            if (!added.contains(s)) action.accept(s);
+            else {
+                Student was = replacedStudents.get(s.getId());
+                if (was != null) action.accept(was);
+            }
+        });
+    }
+
+    public List<Student> listStudents() {
+        List<Student> out = new ArrayList<>(ds.studentCount());
+        forEachStudent(out::add);
+        return out;
+    }
+
+    public Student.Status statusOf(Student s) {
+        Student.Status live = s.getStatus();
+        return deactivated.contains(s) ? Student.Status.ACTIVE : live;
+    }
+
+    public void forEachCourse(Consumer<? super Course> action) {
+        ds.forEachCourse(c -> {
+            if (!added.contains(c)) action.accept(c);
+            else {
+                Course was = replacedCourses.get(c.getCode());
+                if (was != null) action.accept(was);
+            }
+        });
+    }
+
+    public List<Course> listCourses() {
+        List<Course> out = new ArrayList<>();
+        forEachCourse(out::add);
+        return out;
+    }
+
+    public boolean isActive(Course c) { return c.isActive() || deactivated.contains(c); }
+
+    /** The student's enrollments as of opening, in term order (rows dropped since come last). */
+    public List<Enrollment> listEnrollmentsForStudent(Student s) {
+        List<Enrollment> live = ds.listEnrollmentsForStudent(s);
+        List<Enrollment> gone = dropped.get(s.getId());
+        if (gone == null && added.isEmpty()) return live;
+        List<Enrollment> out = new ArrayList<>(live.size());
+        for (Enrollment e : live) if (!added.contains(e)) out.add(e);
+        if (gone != null) for (Enrollment e : gone) if (!live.contains(e)) out.add(e);
+        return out;
+    }
+
+    /** Every enrollment as of opening, grouped by student. */
+    public void forEachEnrollment(Consumer<? super Enrollment> action) {
+        forEachStudent(s -> listEnrollmentsForStudent(s).forEach(action));
+    }
+
+    /** Marks as of opening, or {@link Enrollment#NO_MARKS}. */
+    public int marksOf(Enrollment e) {
+        int live = e.getMarksValue();
+        Integer was = overwrittenMarks.get(e);
+        return was != null ? was : live;
+    }
+
+    /** Marks as of opening, or null if ungraded then. */
+    public Integer getMarks(Enrollment e) {
+        int m = marksOf(e);
+        return m == Enrollment.NO_MARKS ? null : m;
+    }
+
+    public Grade gradeOf(Enrollment e) {
+        int m = marksOf(e);
+        return m == Enrollment.NO_MARKS ? Grade.I : Grade.fromMarks(m);
+    }
+
+    /** Unweighted average grade points over the student's graded enrollments, as {@link Student#getGpa()}. */
+    public double gpaOf(Student s) {
+        int points = 0, graded = 0;
+        for (Enrollment e : listEnrollmentsForStudent(s)) {
+            int m = marksOf(e);
+            if (m == Enrollment.NO_MARKS) continue;
+            points += Grade.fromMarks(m).getPoints();
+            graded++;
+        }
+        return graded == 0 ? 0.0 : (double) points / graded;
+    }
+
+    /**
+     * Top students by GPA as of opening (highest first, ties by id). Unlike
+     * {@link DataStore#topStudentsByGPA} this scans every student, so it is O(S log limit).
+     */
+    public List<Student> topStudentsByGPA(int limit) {
+        record Ranked(double gpa, Student student) {}
+        Comparator<Ranked> worstFirst = Comparator.comparingDouble(Ranked::gpa)
+                .thenComparing(r -> r.student().getId(), Comparator.reverseOrder());
+        if (limit <= 0) return List.of();
+        PriorityQueue<Ranked> heap = new PriorityQueue<>(limit, worstFirst);
+        forEachStudent(s -> {
+            Ranked r = new Ranked(gpaOf(s), s);
+            if (heap.size() < limit) heap.add(r);
+            else if (worstFirst.compare(r, heap.peek()) > 0) { heap.poll(); heap.add(r); }
+        });
+        List<Student> out = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) out.add(heap.poll().student());
+        Collections.reverse(out);
+        return out;
+    }
+
+    public boolean isTermClosed(Term term) { return Arrays.binarySearch(closedTerms, term.key()) >= 0; }
+    /** Terms that were closed when the view opened, oldest first. */
+    public List<Term> closedTerms() {
+        List<Term> out = new ArrayList<>(closedTerms.length);
+        for (int k : closedTerms) out.add(Term.ofKey(k));
+        return out;
+    }
+
+    /** Undo entries recorded so far (what this view costs the heap). */
+    public int undoEntries() {
+        int n = added.size() + deactivated.size() + overwrittenMarks.size();
+        for (List<Enrollment> l : dropped.values()) n += l.size();
+        return n;
+    }
+
+    /** Stops recording undo entries; the view must not be read afterwards. Idempotent. */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        ds.closeReadView(this);
+    }
+}
@@ -0,0 +1,21 @@
+package edu.ccrm.config;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+import edu.ccrm.domain.Term;
+
+/**
+ * A DataStore mutation, published on the store's {@link ChangeStream} after it has been applied.
+ * Events carry the live objects, so a subscriber sees their current state, not a copy.
+ */
+public sealed interface StoreEvent {
+    record StudentAdded(Student student) implements StoreEvent {}
+    record CourseAdded(Course course) implements StoreEvent {}
+    record Enrolled(Enrollment enrollment) implements StoreEvent {}
+    record Unenrolled(Enrollment enrollment) implements StoreEvent {}
+    record MarksRecorded(Enrollment enrollment, int marks) implements StoreEvent {}
+    record StudentDeactivated(String studentId) implements StoreEvent {}
+    record CourseDeactivated(String courseCode) implements StoreEvent {}
+    record TermClosed(Term term) implements StoreEvent {}
+}
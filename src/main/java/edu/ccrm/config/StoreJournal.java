@@ -0,0 +1,28 @@
+package edu.ccrm.config;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+import edu.ccrm.domain.Term;
+
+/**
+ * Receives every DataStore mutation after it has been applied.
+ * Enrollment callbacks run while the student's lock is held, so per-student order is preserved.
+ * {@link #commit()} runs after DataStore has released its own locks, just before the mutator
+ * returns. An enrollment change made by a caller that holds the student's lock (EnrollmentService)
+ * is committed by that caller through {@link DataStore#commit()} once it has unlocked.
+ */
+public interface StoreJournal {
+    StoreJournal NONE = new StoreJournal() {};
+
+    default void studentAdded(Student s) {}
+    default void courseAdded(Course c) {}
+    default void enrolled(Enrollment e) {}
+    default void unenrolled(Enrollment e) {}
+    default void marksRecorded(Enrollment e, int marks) {}
+    default void studentDeactivated(String id) {}
+    default void courseDeactivated(String code) {}
+    default void termClosed(Term term) {}
+    /** Called on the mutating thread after its callbacks; a durable journal waits here for its records. */
+    default void commit() {}
+}
@@ -0,0 +1,134 @@
+package edu.ccrm.config;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Term;
+import edu.ccrm.exception.TermClosedException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Enrollments partitioned by academic term ({@link Term#key()}), in term order. Open terms are
+ * sharded {@link EnrollmentStore}s; closing a term swaps its store for an immutable
+ * {@link FrozenTerm}. Per-student and per-term reads only visit the partitions they name, so the
+ * cost of current-term work does not grow with years of history.
+ *
+ * Writes to an open term hold one read lock out of a striped set (picked by student id), so
+ * writers rarely share a lock; closing takes every stripe's write lock, which waits out in-flight
+ * writes and turns later ones away with {@link TermClosedException}.
+ */
+final class TermPartitions {
+    private final ConcurrentSkipListMap<Integer, Object> terms = new ConcurrentSkipListMap<>();
+
+    private static final class Open {
+        final EnrollmentStore store = new EnrollmentStore();
+        final ReentrantReadWriteLock[] gates;
+        volatile boolean closed;
+
+        Open() {
+            int n = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4 - 1)) << 1;
+            gates = new ReentrantReadWriteLock[n];
+            for (int i = 0; i < n; i++) gates[i] = new ReentrantReadWriteLock();
+        }
+
+        ReentrantReadWriteLock gate(String studentId) {
+            int h = studentId.hashCode();
+            return gates[(h ^ (h >>> 16)) & (gates.length - 1)];
+        }
+    }
+
+    /**
+     * Runs {@code change} against the open partition of {@code term}, keeping the term from closing
+     * until it returns.
+     * @throws TermClosedException if the term is closed
+     */
+    <T> T write(int term, String studentId, Function<EnrollmentStore, T> change) {
+        Object p = terms.get(term);
+        if (p == null) p = terms.computeIfAbsent(term, k -> new Open());
+        if (!(p instanceof Open open)) throw closed(term);
+        ReentrantReadWriteLock.ReadLock gate = open.gate(studentId).readLock();
+        gate.lock();
+        try {
+            if (open.closed) throw closed(term);
+            return change.apply(open.store);
+        } finally {
+            gate.unlock();
+        }
+    }
+
+    private static TermClosedException closed(int term) {
+        return new TermClosedException("Term " + Term.ofKey(term) + " is closed");
+    }
+
+    boolean isClosed(int term) { return terms.get(term) instanceof FrozenTerm; }
+
+    /** Freezes the term (creating it empty if needed); null if it was already closed. */
+    FrozenTerm close(int term) {
+        Object p = terms.computeIfAbsent(term, k -> new Open());
+        if (!(p instanceof Open open)) return null;
+        for (ReentrantReadWriteLock g : open.gates) g.writeLock().lock();
+        try {
+            if (open.closed) return null;
+            FrozenTerm frozen = new FrozenTerm(term, open.store);
+            terms.put(term, frozen);
+            open.closed = true;
+            return frozen;
+        } finally {
+            for (ReentrantReadWriteLock g : open.gates) g.writeLock().unlock();
+        }
+    }
+
+    /** The student's enrollments in the given terms, in term order. */
+    List<Enrollment> forStudent(String studentId, int[] termKeys) {
+        if (termKeys.length == 1) return forStudent(studentId, termKeys[0]);
+        List<Enrollment> out = new ArrayList<>();
+        for (int t : termKeys) out.addAll(forStudent(studentId, t));
+        return out.isEmpty() ? List.of() : Collections.unmodifiableList(out);
+    }
+
+    List<Enrollment> forStudent(String studentId, int term) {
+        Object p = terms.get(term);
+        if (p instanceof Open open) return open.store.forStudent(studentId);
+        return p == null ? List.of() : ((FrozenTerm) p).forStudent(studentId);
+    }
+
+    /** Enrollments of every closed term in the course. */
+    List<Enrollment> closedForCourse(int codeId) {
+        List<Enrollment> out = new ArrayList<>();
+        for (Object p : terms.values()) if (p instanceof FrozenTerm f) out.addAll(f.forCourse(codeId));
+        return out;
+    }
+
+    /** Walks the terms from {@code fromTerm} to {@code toTerm} (inclusive keys) in term order. */
+    void forEach(int fromTerm, int toTerm, Consumer<? super Enrollment> action) {
+        for (Object p : terms.subMap(fromTerm, true, toTerm, true).values()) forEach(p, action);
+    }
+
+    void forEach(Consumer<? super Enrollment> action) {
+        for (Object p : terms.values()) forEach(p, action);
+    }
+
+    private static void forEach(Object p, Consumer<? super Enrollment> action) {
+        if (p instanceof Open open) open.store.forEach(action);
+        else ((FrozenTerm) p).forEach(action);
+    }
+
+    int size() {
+        int n = 0;
+        for (Object p : terms.values()) n += size(p);
+        return n;
+    }
+
+    int size(int term) {
+        Object p = terms.get(term);
+        return p == null ? 0 : size(p);
+    }
+
+    private static int size(Object p) { return p instanceof Open open ? open.store.size() : ((FrozenTerm) p).size(); }
+
+    /** Keys of every term that has (or had) a partition, oldest first. */
+    int[] termKeys() { return terms.keySet().stream().mapToInt(Integer::intValue).toArray(); }
+}
@@ -0,0 +1,50 @@
+package edu.ccrm.config;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lets {@link DataStore#openReadView()} wait out the mutations that started before a view was
+ * published, without writers ever waiting on each other or on the view. A writer counts itself into
+ * the current phase (in a stripe picked by thread, one cache line apart) and out when done; opening
+ * a view publishes it, flips the phase and waits for the old phase's counts to drain. A writer that
+ * finds the phase flipped under it re-enters, so every count in the old phase belongs to a writer
+ * that may have missed the view.
+ */
+final class WriteGate {
+    private static final int PAD = 16; // longs per stripe: 128 bytes
+    private final int stripes;
+    private final AtomicLongArray inFlight;
+    private volatile int phase;
+
+    WriteGate() {
+        stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        inFlight = new AtomicLongArray(2 * stripes * PAD);
+    }
+
+    /** Counts the calling writer in; pass the result to {@link #exit}. */
+    int enter() {
+        long t = Thread.currentThread().getId();
+        int stripe = (int) (t ^ (t >>> 16)) & (stripes - 1);
+        for (;;) {
+            int p = phase;
+            int slot = (p * stripes + stripe) * PAD;
+            inFlight.getAndIncrement(slot);
+            if (phase == p) return slot;
+            inFlight.getAndDecrement(slot);
+        }
+    }
+
+    void exit(int slot) { inFlight.getAndDecrement(slot); }
+
+    /** Flips the phase and waits until every writer counted into the old one has left; callers serialize. */
+    void flip() {
+        int old = phase;
+        phase = old ^ 1;
+        for (int s = 0; s < stripes; s++) {
+            int slot = (old * stripes + s) * PAD;
+            for (int spins = 0; inFlight.get(slot) != 0; spins++) {
+                if (spins < 128) Thread.onSpinWait(); else Thread.yield();
+            }
+        }
+    }
+}
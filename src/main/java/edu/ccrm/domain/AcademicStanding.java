@@ -0,0 +1,22 @@
+package edu.ccrm.domain;
+
+/**
+ * Academic standing at the end of a term, from credit-weighted GPAs on the 0-10 grade-point scale.
+ * PROBATION: cumulative GPA below {@value #PROBATION_BELOW} (an E average, the lowest pass).
+ * DEANS_LIST: otherwise, a term GPA of at least {@value #DEANS_LIST_FROM} over at least
+ * {@value #DEANS_LIST_CREDITS} graded credits. UNRATED: nothing graded yet.
+ */
+public enum AcademicStanding {
+    DEANS_LIST, GOOD, PROBATION, UNRATED;
+
+    public static final double PROBATION_BELOW = 5.0;
+    public static final double DEANS_LIST_FROM = 9.0;
+    public static final int DEANS_LIST_CREDITS = 12;
+
+    public static AcademicStanding of(double termGpa, int termGradedCredits, double cumulativeGpa, int gradedCredits) {
+        if (gradedCredits == 0) return UNRATED;
+        if (cumulativeGpa < PROBATION_BELOW) return PROBATION;
+        if (termGradedCredits >= DEANS_LIST_CREDITS && termGpa >= DEANS_LIST_FROM) return DEANS_LIST;
+        return GOOD;
+    }
+}
@@ -1,26 +1,57 @@
 package edu.ccrm.domain;
 
+import edu.ccrm.util.StringDictionary;
+
+import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Course with Builder (static nested) and an immutable CourseCode value object.
+ * Codes and departments are dictionary-encoded: every course with the same code or department
+ * shares one String, and students track their courses by the code's int id.
  */
 public class Course {
+    /** Capacity of a course without a seat limit. */
+    public static final int UNLIMITED = 0;
+    private static final AtomicIntegerFieldUpdater<Course> SEATS =
+            AtomicIntegerFieldUpdater.newUpdater(Course.class, "seatsTaken");
+    private static final StringDictionary CODES = new StringDictionary();
+    private static final StringDictionary DEPARTMENTS = new StringDictionary();
+
     // Immutable CourseCode nested static final class (value object)
     public static final class CourseCode {
         private final String code;
-        private CourseCode(String code) { this.code = Objects.requireNonNull(code).toUpperCase(); }
+        private final int id;
+        private CourseCode(String code) {
+            this.id = codeId(code);
+            this.code = CODES.decode(id);
+        }
         public String code() { return code; }
+        public int id() { return id; }
         @Override public String toString() { return code; }
     }
 
+    /** Dense id of a course code (case-insensitive), assigning one on first use. */
+    public static int codeId(String code) {
+        return CODES.encode(Objects.requireNonNull(code).toUpperCase(Locale.ROOT));
+    }
+    /** Id of a course code seen before, or -1. */
+    public static int knownCodeId(String code) {
+        return code == null ? -1 : CODES.idOf(code.toUpperCase(Locale.ROOT));
+    }
+    public static String codeOf(int id) { return CODES.decode(id); }
+
     private final CourseCode code;
     private String title;
     private int credits;
     private Instructor instructor;
     private Semester semester;
-    private String department;
+    private final int department; // DEPARTMENTS id, -1 for none
     private boolean active = true;
+    private final int capacity;
+    // seats held by enrollments; changed only through SEATS so concurrent enrolls never oversell
+    private volatile int seatsTaken;
 
     private Course(Builder b) {
         this.code = new CourseCode(b.code);
@@ -28,7 +59,8 @@ public class Course {
         this.credits = b.credits;
         this.instructor = b.instructor;
         this.semester = b.semester;
-        this.department = b.department;
+        this.department = DEPARTMENTS.encode(b.department);
+        this.capacity = b.capacity;
     }
 
     public static class Builder {
@@ -38,6 +70,7 @@ public class Course {
         private Instructor instructor;
         private Semester semester = Semester.FALL;
         private String department = "General";
+        private int capacity = UNLIMITED;
 
         public Builder(String code) { this.code = code; }
         public Builder title(String t){ this.title = t; return this; }
@@ -45,18 +78,43 @@ public class Course {
         public Builder instructor(Instructor i){ this.instructor = i; return this; }
         public Builder semester(Semester s){ this.semester = s; return this; }
         public Builder department(String d){ this.department = d; return this; }
+        /** Seat limit; {@link #UNLIMITED} (the default) for none. */
+        public Builder capacity(int seats){
+            if (seats < 0) throw new IllegalArgumentException("capacity must be >= 0");
+            this.capacity = seats;
+            return this;
+        }
         public Course build(){ return new Course(this); }
     }
 
     /* getters */
     public CourseCode getCodeObj() { return code; }
     public String getCode() { return code.toString(); }
+    public int getCodeId() { return code.id(); }
     public String getTitle() { return title; }
     public int getCredits() { return credits; }
     public Instructor getInstructor() { return instructor; }
     public Semester getSemester() { return semester; }
-    public String getDepartment() { return department; }
+    public String getDepartment() { return DEPARTMENTS.decode(department); }
+    public int getDepartmentId() { return department; }
     public boolean isActive() { return active; }
+    public int getCapacity() { return capacity; }
+    public boolean hasSeatLimit() { return capacity != UNLIMITED; }
+    public int getSeatsTaken() { return seatsTaken; }
+    /** Free seats, or {@link Integer#MAX_VALUE} without a seat limit. */
+    public int getSeatsLeft() { return hasSeatLimit() ? Math.max(0, capacity - seatsTaken) : Integer.MAX_VALUE; }
+
+    /** Takes a seat if one is free (compare-and-set loop, no lock); false when the course is full. */
+    public boolean tryTakeSeat() {
+        for (;;) {
+            int taken = seatsTaken;
+            if (hasSeatLimit() && taken >= capacity) return false;
+            if (SEATS.compareAndSet(this, taken, taken + 1)) return true;
+        }
+    }
+    /** Counts a seat regardless of capacity: restoring enrollments that already exist. */
+    public void takeSeat() { SEATS.incrementAndGet(this); }
+    public void releaseSeat() { SEATS.decrementAndGet(this); }
 
     public void setInstructor(Instructor instructor) { this.instructor = instructor; }
     public void deactivate() { this.active = false; }
@@ -64,6 +122,6 @@ public class Course {
     @Override
     public String toString() {
         return String.format("%s - %s (%dcr) [%s] Dept:%s Instr:%s",
-                code, title, credits, semester, department, instructor == null ? "TBD" : instructor.getFullName());
+                code, title, credits, semester, getDepartment(), instructor == null ? "TBD" : instructor.getFullName());
     }
 }
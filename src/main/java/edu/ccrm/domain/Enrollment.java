@@ -2,41 +2,81 @@ package edu.ccrm.domain;
 
 import java.time.LocalDate;
 
-/** Enrollment records marks and computes grade */
+/** Enrollment records marks and computes grade; it belongs to one academic {@link Term}. */
 public class Enrollment {
+    /** {@link #getMarksValue()} of an enrollment that has not been graded. */
+    public static final int NO_MARKS = -1;
+
     private final Student student;
     private final Course course;
-    private final LocalDate enrolledOn;
-    private Integer marks; // null until graded
+    private final int enrolledOn; // epoch day
+    private final int term; // Term.key()
+    private volatile int marks = NO_MARKS;
 
     public Enrollment(Student student, Course course) {
+        this(student, course, LocalDate.now());
+    }
+
+    public Enrollment(Student student, Course course, LocalDate enrolledOn) {
+        this(student, course, (int) enrolledOn.toEpochDay());
+    }
+
+    public Enrollment(Student student, Course course, int enrolledOnEpochDay) {
         this.student = student;
         this.course = course;
-        this.enrolledOn = LocalDate.now();
+        this.enrolledOn = enrolledOnEpochDay;
+        this.term = Term.keyFor(course.getSemester(), enrolledOnEpochDay);
     }
 
     public Student getStudent(){ return student; }
     public Course getCourse(){ return course; }
-    public LocalDate getEnrolledOn(){ return enrolledOn; }
-    public Integer getMarks(){ return marks; }
+    public LocalDate getEnrolledOn(){ return LocalDate.ofEpochDay(enrolledOn); }
+    public int getEnrolledOnEpochDay(){ return enrolledOn; }
+    public Term getTerm(){ return Term.ofKey(term); }
+    public int getTermKey(){ return term; }
+    /** Marks, or null until graded (0-100 are cached Integers, so this does not allocate). */
+    public Integer getMarks(){ int m = marks; return m == NO_MARKS ? null : m; }
+    /** Marks, or {@link #NO_MARKS} until graded. */
+    public int getMarksValue(){ return marks; }
+    public boolean isGraded(){ return marks != NO_MARKS; }
 
+    /** Records marks and moves the student's running GPA totals from the old grade to the new one. */
     public void recordMarks(int marks) {
         if (marks < 0 || marks > 100) throw new IllegalArgumentException("Marks must be 0-100");
-        this.marks = marks;
+        student.getLock().lock();
+        try {
+            int previous = this.marks;
+            this.marks = marks;
+            student.applyGradeChange(previous == NO_MARKS ? null : Grade.fromMarks(previous), Grade.fromMarks(marks));
+        } finally { student.getLock().unlock(); }
+    }
+
+    /** Takes this enrollment's grade back out of the student's GPA totals (used when it is removed). */
+    public void retractGrade() {
+        int m = marks;
+        if (m != NO_MARKS) student.applyGradeChange(Grade.fromMarks(m), null);
     }
 
     public Grade getGrade() {
-        if (marks == null) return Grade.I;
-        return Grade.fromMarks(marks);
+        int m = marks;
+        return m == NO_MARKS ? Grade.I : Grade.fromMarks(m);
     }
 
     public String transcriptLine() {
-        return String.format("%s | %s | %dcr | Marks=%s | Grade=%s",
-            course.getCode(), course.getTitle(), course.getCredits(), marks == null ? "N/A" : marks, getGrade());
+        return appendTranscriptLine(new StringBuilder(64)).toString();
+    }
+
+    /** Appends {@code CODE | Title | 3cr | Marks=87 | Grade=A} (Marks=N/A when ungraded). */
+    public StringBuilder appendTranscriptLine(StringBuilder sb) {
+        int m = marks;
+        sb.append(course.getCode()).append(" | ").append(course.getTitle()).append(" | ")
+                .append(course.getCredits()).append("cr | Marks=");
+        if (m == NO_MARKS) sb.append("N/A"); else sb.append(m);
+        return sb.append(" | Grade=").append(m == NO_MARKS ? Grade.I : Grade.fromMarks(m));
     }
 
     @Override
     public String toString() {
-        return String.format("Enrollment[%s -> %s] on %s", student.getRegNo(), course.getCode(), enrolledOn);
+        return String.format("Enrollment[%s -> %s] on %s", student.getRegNo(), course.getCode(), getEnrolledOn());
     }
 }
@@ -9,20 +9,20 @@ public abstract class Person {
     protected final String id; // immutable identity
     protected String fullName;
     protected String email;
-    protected LocalDate createdAt;
+    protected int createdOn; // epoch day
 
     protected Person(String id, String fullName, String email) {
         assert id != null && !id.isBlank() : "id must be non-null and non-blank";
         this.id = id;
         this.fullName = fullName;
         this.email = email;
-        this.createdAt = LocalDate.now();
+        this.createdOn = (int) LocalDate.now().toEpochDay();
     }
 
     public String getId() { return id; }
     public String getFullName() { return fullName; }
     public String getEmail() { return email; }
-    public LocalDate getCreatedAt() { return createdAt; }
+    public LocalDate getCreatedAt() { return LocalDate.ofEpochDay(createdOn); }
 
     public abstract String profile();
 }
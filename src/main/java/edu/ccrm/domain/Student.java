@@ -1,34 +1,170 @@
 package edu.ccrm.domain;
 
+import edu.ccrm.util.IntSet;
+
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Student class demonstrating encapsulation & collections.
  */
 public class Student extends Person {
     public enum Status { ACTIVE, INACTIVE }
+    private static final long[] NO_TERMS = new long[0];
 
     private final String regNo;
     private Status status;
-    private final LocalDate admissionDate;
-    // enrolled course codes stored for quick access
-    private final Set<String> enrolledCourseCodes = new HashSet<>();
+    private final int admissionDay; // epoch day
+    // enrolled course ids ({@link Course#getCodeId()}) for quick access; mutated only while holding lock
+    private final IntSet enrolledCourseIds = new IntSet();
+    private volatile int enrolledCredits;
+    // per term with enrollments, sorted by term: key << 32 | count << 16 | credits (copy-on-write under lock)
+    private volatile long[] termLoad = NO_TERMS;
+    // running grade-point sum/count over graded enrollments, kept current by Enrollment.recordMarks
+    private volatile long gradePointSum;
+    private volatile int gradedCount;
+    // bumped (under lock) after every change to this student's enrollments, grades or status
+    private volatile long version;
+    private final ReentrantLock lock = new ReentrantLock();
 
     public Student(String id, String regNo, String fullName, String email) {
         super(id, fullName, email);
         this.regNo = regNo;
         this.status = Status.ACTIVE;
-        this.admissionDate = LocalDate.now();
+        this.admissionDay = createdOn;
     }
 
     public String getRegNo() { return regNo; }
     public Status getStatus() { return status; }
-    public LocalDate getAdmissionDate() { return admissionDate; }
+    public LocalDate getAdmissionDate() { return LocalDate.ofEpochDay(admissionDay); }
+
+    /** Per-student lock: enrollment checks and updates for this student run while holding it. */
+    public ReentrantLock getLock() { return lock; }
+
+    /** Counts the course towards the current term. */
+    public boolean enrollCourse(String courseCode, int credits) {
+        return enrollCourse(Course.codeId(courseCode), Term.current().key(), credits);
+    }
+    public boolean enrollCourse(int courseId, int term, int credits) {
+        lock.lock();
+        try {
+            if (!enrolledCourseIds.add(courseId)) return false;
+            enrolledCredits += credits;
+            addTermLoad(term, 1, credits);
+            return true;
+        } finally { lock.unlock(); }
+    }
+    public boolean unenrollCourse(String courseCode, int credits) {
+        return unenrollCourse(Course.codeId(courseCode), Term.current().key(), credits);
+    }
+    public boolean unenrollCourse(int courseId, int term, int credits) {
+        lock.lock();
+        try {
+            if (!enrolledCourseIds.remove(courseId)) return false;
+            enrolledCredits -= credits;
+            addTermLoad(term, -1, -credits);
+            return true;
+        } finally { lock.unlock(); }
+    }
+
+    private void addTermLoad(int term, int count, int credits) {
+        long[] cur = termLoad;
+        int i = findTerm(cur, term);
+        if (i < 0) {
+            if (count <= 0) return;
+            i = -i - 1;
+            long[] next = new long[cur.length + 1];
+            System.arraycopy(cur, 0, next, 0, i);
+            System.arraycopy(cur, i, next, i + 1, cur.length - i);
+            next[i] = pack(term, count, credits);
+            termLoad = next;
+            return;
+        }
+        int n = (int) (cur[i] >>> 16 & 0xFFFF) + count;
+        long[] next;
+        if (n <= 0) {
+            next = new long[cur.length - 1];
+            System.arraycopy(cur, 0, next, 0, i);
+            System.arraycopy(cur, i + 1, next, i, cur.length - i - 1);
+        } else {
+            next = cur.clone();
+            next[i] = pack(term, n, (int) (cur[i] & 0xFFFF) + credits);
+        }
+        termLoad = next;
+    }
+
+    private static long pack(int term, int count, int credits) {
+        return (long) term << 32 | (long) (count & 0xFFFF) << 16 | (credits & 0xFFFF);
+    }
 
-    public void enrollCourse(String courseCode) { enrolledCourseCodes.add(courseCode); }
-    public void unenrollCourse(String courseCode) { enrolledCourseCodes.remove(courseCode); }
-    public Set<String> getEnrolledCourseCodes() { return Collections.unmodifiableSet(enrolledCourseCodes); }
+    private static int findTerm(long[] load, int term) {
+        int lo = 0, hi = load.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int t = (int) (load[mid] >> 32);
+            if (t < term) lo = mid + 1;
+            else if (t > term) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+
+    /** Credits enrolled in one term ({@link Term#key()}); this is what the per-term limit applies to. */
+    public int getTermCredits(int term) {
+        long[] load = termLoad;
+        int i = findTerm(load, term);
+        return i < 0 ? 0 : (int) (load[i] & 0xFFFF);
+    }
+    public int getTermCredits(Term term) { return getTermCredits(term.key()); }
+    /** Keys of the terms this student has enrollments in, oldest first. */
+    public int[] getTermKeys() {
+        long[] load = termLoad;
+        int[] keys = new int[load.length];
+        for (int i = 0; i < load.length; i++) keys[i] = (int) (load[i] >> 32);
+        return keys;
+    }
+    public List<Term> getTerms() {
+        List<Term> out = new ArrayList<>();
+        for (int k : getTermKeys()) out.add(Term.ofKey(k));
+        return out;
+    }
+    public boolean isEnrolledIn(String courseCode) {
+        int id = Course.knownCodeId(courseCode);
+        return id >= 0 && enrolledCourseIds.contains(id);
+    }
+    public boolean isEnrolledIn(Course c) { return enrolledCourseIds.contains(c.getCodeId()); }
+    /** Credits over all terms. */
+    public int getEnrolledCredits() { return enrolledCredits; }
+    /** Snapshot of the enrolled course codes, decoded from their ids. */
+    public Set<String> getEnrolledCourseCodes() {
+        int[] ids = enrolledCourseIds.toArray();
+        Set<String> out = new LinkedHashSet<>(ids.length * 2);
+        for (int id : ids) out.add(Course.codeOf(id));
+        return Collections.unmodifiableSet(out);
+    }
+
+    /** Replaces one enrollment's contribution to the GPA; a null grade means "not graded". */
+    void applyGradeChange(Grade before, Grade after) {
+        lock.lock();
+        try {
+            if (before != null) { gradePointSum -= before.getPoints(); gradedCount--; }
+            if (after != null) { gradePointSum += after.getPoints(); gradedCount++; }
+        } finally { lock.unlock(); }
+    }
+    public int getGradedCount() { return gradedCount; }
+
+    /** Change counter for caches of derived data (transcripts); compare before and after reading. */
+    public long getVersion() { return version; }
+    /** Called by the store, holding this student's lock, once a change is fully applied. */
+    public void markChanged() { version++; }
+    /** Unweighted average grade points over graded enrollments (0 when nothing is graded). */
+    public double getGpa() {
+        lock.lock();
+        try {
+            return gradedCount == 0 ? 0.0 : (double) gradePointSum / gradedCount;
+        } finally { lock.unlock(); }
+    }
 
     public void deactivate() { this.status = Status.INACTIVE; }
 
@@ -0,0 +1,54 @@
+package edu.ccrm.domain;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * An academic term: a year and a {@link Semester}. Terms order chronologically, and each has a
+ * compact int {@link #key()} ({@code year * 4 + semester ordinal}) with the same order, which is
+ * what enrollments store. Calendar mapping: January-May is SPRING, June-July SUMMER, August-December FALL.
+ */
+public record Term(int year, Semester semester) implements Comparable<Term> {
+    private static final Semester[] SEMESTERS = Semester.values();
+
+    public Term {
+        if (semester == null) throw new IllegalArgumentException("semester is required");
+    }
+
+    public int key() { return key(year, semester); }
+    public static int key(int year, Semester semester) { return year * 4 + semester.ordinal(); }
+    public static Term ofKey(int key) { return new Term(Math.floorDiv(key, 4), SEMESTERS[Math.floorMod(key, 4)]); }
+
+    /** The term a date falls in. */
+    public static Term of(LocalDate day) { return ofKey(keyOf((int) day.toEpochDay())); }
+    public static Term current() { return of(LocalDate.now()); }
+
+    public static int keyOf(int epochDay) {
+        LocalDate d = LocalDate.ofEpochDay(epochDay);
+        int m = d.getMonthValue();
+        return key(d.getYear(), m <= 5 ? Semester.SPRING : m <= 7 ? Semester.SUMMER : Semester.FALL);
+    }
+
+    /**
+     * Key of the term an enrollment made on {@code epochDay} in a course taught in {@code semester}
+     * belongs to: the first such semester that hasn't ended by then (enrolling for SPRING in November
+     * means next year's). A course without a semester counts in the term of the date.
+     */
+    public static int keyFor(Semester semester, int epochDay) {
+        int onDay = keyOf(epochDay);
+        if (semester == null) return onDay;
+        int year = Math.floorDiv(onDay, 4);
+        return key(semester.ordinal() >= Math.floorMod(onDay, 4) ? year : year + 1, semester);
+    }
+
+    /** Parses {@code 2024-FALL}, {@code FALL-2024} or {@code FALL 2024} (case-insensitive). */
+    public static Term parse(String s) {
+        String[] parts = s.trim().toUpperCase(Locale.ROOT).split("[\\s\\-/]+");
+        if (parts.length != 2) throw new IllegalArgumentException("Term must look like 2024-FALL: " + s);
+        boolean yearFirst = Character.isDigit(parts[0].charAt(0));
+        return new Term(Integer.parseInt(yearFirst ? parts[0] : parts[1]), Semester.valueOf(yearFirst ? parts[1] : parts[0]));
+    }
+
+    @Override public int compareTo(Term o) { return Integer.compare(key(), o.key()); }
+    @Override public String toString() { return year + "-" + semester; }
+}
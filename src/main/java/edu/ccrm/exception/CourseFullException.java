@@ -0,0 +1,5 @@
+package edu.ccrm.exception;
+
+public class CourseFullException extends RuntimeException {
+    public CourseFullException(String message) { super(message); }
+}
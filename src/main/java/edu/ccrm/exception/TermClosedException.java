@@ -0,0 +1,5 @@
+package edu.ccrm.exception;
+
+public class TermClosedException extends RuntimeException {
+    public TermClosedException(String message) { super(message); }
+}
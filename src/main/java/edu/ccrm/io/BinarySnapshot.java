@@ -0,0 +1,323 @@
+package edu.ccrm.io;
+
+import edu.ccrm.config.DataStore;
+import edu.ccrm.config.ReadView;
+import edu.ccrm.domain.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * Versioned binary snapshot of students, courses and enrollments.
+ *
+ * Layout (big-endian): magic "CCRMSNAP", int version, long createdAtMillis, then
+ * departments (int n, n strings), courses (int n; code, title, credits, department index,
+ * semester ordinal, active flag, capacity (version 2+)), closed terms (version 3+: int n, n term
+ * keys), students (1-byte presence marker per row; id, regNo, fullName,
+ * email, status ordinal; terminated by 0) and enrollments (int student index, int course index,
+ * int epoch day, byte marks or -1; terminated by student index -1), then an int CRC32C of
+ * everything before it. Strings are int length + UTF-8 bytes, length -1 for null.
+ *
+ * Enrollments reference students and courses by their position in the file, so the per-row cost is
+ * 13 bytes. The dump is taken through a {@link ReadView}, so it is the store at one point in time;
+ * changes after it are still in the write-ahead log, which is replayed on top of the snapshot. The
+ * listed closed terms are those closed when the view opened, so each listed term's rows are
+ * complete; they are loaded as open rows and then the terms are closed again.
+ */
+public final class BinarySnapshot {
+    private static final byte[] MAGIC = "CCRMSNAP".getBytes(StandardCharsets.US_ASCII);
+    public static final int VERSION = 3;
+    private static final int BUFFER = 1 << 20;
+    private static final long VERIFY_WINDOW = 256L << 20;
+    private static final int LOAD_BATCH = 4096;
+
+    /** Row counts of one save or load. */
+    public record Stats(long students, long courses, long enrollments) {
+        public long total() { return students + courses + enrollments; }
+        @Override public String toString() {
+            return students + " students, " + courses + " courses, " + enrollments + " enrollments";
+        }
+    }
+
+    private BinarySnapshot() {}
+
+    /** Writes the store as of now to {@code out} (truncating it) and fsyncs the file. */
+    public static Stats save(DataStore ds, Path out) throws IOException {
+        try (ReadView view = ds.openReadView()) { return save(view, out); }
+    }
+
+    public static Stats save(ReadView view, Path out) throws IOException {
+        try (FileChannel ch = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output o = new Output(ch);
+            o.put(MAGIC);
+            o.putInt(VERSION);
+            o.putLong(System.currentTimeMillis());
+
+            List<Course> courses = view.listCourses();
+            Map<String, Integer> deptIndex = new LinkedHashMap<>();
+            for (Course c : courses) deptIndex.putIfAbsent(nullToEmpty(c.getDepartment()), deptIndex.size());
+            o.putInt(deptIndex.size());
+            for (String d : deptIndex.keySet()) o.putString(d);
+
+            Map<String, Integer> courseIndex = new HashMap<>(courses.size() * 2);
+            o.putInt(courses.size());
+            for (Course c : courses) {
+                courseIndex.put(c.getCode(), courseIndex.size());
+                o.putString(c.getCode());
+                o.putString(c.getTitle());
+                o.putInt(c.getCredits());
+                o.putInt(deptIndex.get(nullToEmpty(c.getDepartment())));
+                o.put((byte) c.getSemester().ordinal());
+                o.put((byte) (view.isActive(c) ? 1 : 0));
+                o.putInt(c.getCapacity());
+            }
+
+            List<Term> closed = view.closedTerms();
+            o.putInt(closed.size());
+            for (Term t : closed) o.putInt(t.key());
+
+            List<Student> students = view.listStudents();
+            Map<String, Integer> studentIndex = new HashMap<>(Math.max(16, students.size() * 2));
+            for (Student s : students) {
+                studentIndex.put(s.getId(), studentIndex.size());
+                o.put((byte) 1);
+                o.putString(s.getId());
+                o.putString(s.getRegNo());
+                o.putString(s.getFullName());
+                o.putString(s.getEmail());
+                o.put((byte) view.statusOf(s).ordinal());
+            }
+            o.put((byte) 0);
+
+            long[] enrollments = {0};
+            view.forEachEnrollment(e -> o.unchecked(() -> {
+                Integer si = studentIndex.get(e.getStudent().getId());
+                Integer ci = courseIndex.get(e.getCourse().getCode());
+                if (si == null || ci == null) return;
+                o.putInt(si);
+                o.putInt(ci);
+                o.putInt(e.getEnrolledOnEpochDay());
+                o.put((byte) view.marksOf(e));
+                enrollments[0]++;
+            }));
+            o.putInt(-1);
+            o.finish();
+            ch.force(true);
+            return new Stats(studentIndex.size(), courses.size(), enrollments[0]);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Verifies the checksum, then loads the snapshot into {@code ds}.
+     * Students and courses already present (same id/code) are kept rather than replaced.
+     */
+    public static Stats load(DataStore ds, Path in) throws IOException {
+        try (FileChannel ch = FileChannel.open(in, StandardOpenOption.READ)) {
+            verify(ch, in);
+            Input i = new Input(ch);
+            byte[] magic = i.bytes(MAGIC.length);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException(in + " is not a CCRM snapshot");
+            int version = i.getInt();
+            if (version < 1 || version > VERSION) throw new IOException("unsupported snapshot version " + version);
+            i.getLong(); // createdAt
+
+            String[] departments = new String[i.getInt()];
+            for (int d = 0; d < departments.length; d++) departments[d] = i.getString();
+
+            Semester[] semesters = Semester.values();
+            Course[] courses = new Course[i.getInt()];
+            for (int c = 0; c < courses.length; c++) {
+                String code = i.getString();
+                String title = i.getString();
+                int credits = i.getInt();
+                String dept = departments[i.getInt()];
+                Semester sem = semesters[i.get()];
+                boolean active = i.get() == 1;
+                int capacity = version >= 2 ? i.getInt() : Course.UNLIMITED;
+                Optional<Course> existing = ds.findCourseByCode(code);
+                if (existing.isPresent()) {
+                    courses[c] = existing.get();
+                    continue;
+                }
+                courses[c] = new Course.Builder(code).title(title).credits(credits).department(dept).semester(sem)
+                        .capacity(capacity).build();
+                ds.addCourse(courses[c]);
+                if (!active) ds.deactivateCourse(code);
+            }
+
+            int[] closedTerms = new int[version >= 3 ? i.getInt() : 0];
+            for (int t = 0; t < closedTerms.length; t++) closedTerms[t] = i.getInt();
+
+            Student.Status[] statuses = Student.Status.values();
+            List<Student> students = new ArrayList<>();
+            while (i.get() == 1) {
+                String id = i.getString();
+                String regNo = i.getString();
+                String name = i.getString();
+                String email = i.getString();
+                Student.Status status = statuses[i.get()];
+                Optional<Student> existing = ds.findStudentById(id);
+                if (existing.isPresent()) {
+                    students.add(existing.get());
+                    continue;
+                }
+                Student s = new Student(id, regNo, name, email);
+                ds.addStudent(s);
+                if (status == Student.Status.INACTIVE) ds.deactivateStudent(id);
+                students.add(s);
+            }
+
+            long enrollments = 0;
+            List<Enrollment> batch = new ArrayList<>(LOAD_BATCH);
+            for (int si = i.getInt(); si >= 0; si = i.getInt()) {
+                Student s = students.get(si);
+                Course c = courses[i.getInt()];
+                int day = i.getInt();
+                byte marks = i.get();
+                if (s.isEnrolledIn(c)) continue;
+                Enrollment e = new Enrollment(s, c, day);
+                if (ds.isTermClosed(e.getTermKey())) continue; // already frozen in the store
+                if (marks >= 0) e.recordMarks(marks);
+                batch.add(e);
+                if (batch.size() == LOAD_BATCH) {
+                    enrollments += batch.size() - ds.addEnrollments(batch).size();
+                    batch.clear();
+                }
+            }
+            enrollments += batch.size() - ds.addEnrollments(batch).size();
+            for (int t : closedTerms) ds.closeTerm(Term.ofKey(t));
+            return new Stats(students.size(), courses.length, enrollments);
+        }
+    }
+
+    /** Checks the trailing CRC32C by streaming the file through memory-mapped windows. */
+    private static void verify(FileChannel ch, Path in) throws IOException {
+        long size = ch.size();
+        if (size < MAGIC.length + 4) throw new IOException(in + " is truncated");
+        long body = size - 4;
+        CRC32C crc = new CRC32C();
+        for (long pos = 0; pos < body; pos += VERIFY_WINDOW) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(VERIFY_WINDOW, body - pos));
+            crc.update(map);
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(4);
+        while (trailer.hasRemaining()) {
+            if (ch.read(trailer, body + trailer.position()) < 0) throw new EOFException();
+        }
+        if (trailer.flip().getInt() != (int) crc.getValue()) throw new IOException(in + " failed its checksum");
+    }
+
+    private static String nullToEmpty(String s) { return s == null ? "" : s; }
+
+    /** Buffered big-endian writer over a channel that keeps a running CRC32C. */
+    private static final class Output {
+        interface IoAction { void run() throws IOException; }
+
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER);
+        private final CRC32C crc = new CRC32C();
+
+        Output(FileChannel ch) { this.ch = ch; }
+
+        void unchecked(IoAction a) {
+            try {
+                a.run();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        void ensure(int n) throws IOException { if (buf.remaining() < n) flush(); }
+        void put(byte b) throws IOException { ensure(1); buf.put(b); }
+        void putInt(int v) throws IOException { ensure(4); buf.putInt(v); }
+        void putLong(long v) throws IOException { ensure(8); buf.putLong(v); }
+        void put(byte[] b) throws IOException {
+            int off = 0;
+            while (off < b.length) {
+                if (!buf.hasRemaining()) flush();
+                int n = Math.min(buf.remaining(), b.length - off);
+                buf.put(b, off, n);
+                off += n;
+            }
+        }
+        void putString(String s) throws IOException {
+            if (s == null) { putInt(-1); return; }
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            putInt(b.length);
+            put(b);
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            crc.update(buf.duplicate());
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+
+        void finish() throws IOException {
+            flush();
+            ByteBuffer trailer = ByteBuffer.allocate(4).putInt((int) crc.getValue()).flip();
+            while (trailer.hasRemaining()) ch.write(trailer);
+        }
+    }
+
+    /** Buffered big-endian reader over a channel. */
+    private static final class Input {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER);
+
+        Input(FileChannel ch) {
+            this.ch = ch;
+            buf.limit(0);
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buf.remaining() >= n) return;
+            buf.compact();
+            while (buf.position() < n) {
+                if (ch.read(buf) < 0) throw new EOFException("snapshot ended early");
+            }
+            buf.flip();
+        }
+
+        byte get() throws IOException { ensure(1); return buf.get(); }
+        int getInt() throws IOException { ensure(4); return buf.getInt(); }
+        long getLong() throws IOException { ensure(8); return buf.getLong(); }
+
+        byte[] bytes(int n) throws IOException {
+            byte[] out = new byte[n];
+            int off = 0;
+            while (off < n) {
+                ensure(1);
+                int k = Math.min(buf.remaining(), n - off);
+                buf.get(out, off, k);
+                off += k;
+            }
+            return out;
+        }
+
+        String getString() throws IOException {
+            int len = getInt();
+            if (len < 0) return null;
+            if (len <= buf.capacity()) {
+                ensure(len);
+                String s = StandardCharsets.UTF_8.decode(buf.slice().limit(len)).toString();
+                buf.position(buf.position() + len);
+                return s;
+            }
+            return new String(bytes(len), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package edu.ccrm.io;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 CSV field handling: quoted fields, doubled quotes as escapes,
+ * and separators/newlines inside quotes.
+ */
+public final class CsvCodec {
+    private CsvCodec() {}
+
+    /** Splits one record into fields; quotes are removed and {@code ""} unescaped. */
+    public static List<String> parse(CharSequence record) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        int n = record.length();
+        for (int i = 0; i < n; i++) {
+            char ch = record.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < n && record.charAt(i + 1) == '"') { cur.append('"'); i++; }
+                    else quoted = false;
+                } else {
+                    cur.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(ch);
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("unterminated quoted field");
+        fields.add(cur.toString());
+        return fields;
+    }
+
+    /** Appends the field, quoting it only when it contains a separator, quote or line break. */
+    public static StringBuilder appendField(StringBuilder out, String field) {
+        if (field == null) return out;
+        boolean needsQuotes = false;
+        for (int i = 0; i < field.length() && !needsQuotes; i++) {
+            char ch = field.charAt(i);
+            needsQuotes = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!needsQuotes) return out.append(field);
+        out.append('"');
+        for (int i = 0; i < field.length(); i++) {
+            char ch = field.charAt(i);
+            if (ch == '"') out.append('"');
+            out.append(ch);
+        }
+        return out.append('"');
+    }
+
+    public static String format(String... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) sb.append(',');
+            appendField(sb, fields[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,184 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Streaming CSV import pipeline.
+ * The file is memory-mapped window by window and split into records on unquoted newlines;
+ * records are grouped into chunks that worker threads parse, map and hand to the sink as one batch.
+ * A bounded number of chunks is in flight at any time, so memory stays flat for multi-GB files.
+ * Rows that fail to parse or map are recorded in the {@link ImportReport} instead of aborting the run.
+ */
+public class CsvImporter {
+    /** Maps one parsed row; throwing any RuntimeException rejects the row with its message. */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(List<String> fields);
+    }
+
+    /** Receives one mapped chunk; rows it cannot apply are handed back through {@code rejects}. */
+    @FunctionalInterface
+    public interface BatchSink<T> {
+        void accept(List<T> batch, Rejects rejects);
+    }
+
+    /** Rejects the row at {@code index} of the current batch. */
+    @FunctionalInterface
+    public interface Rejects {
+        void reject(int index, String reason);
+    }
+
+    public static final int DEFAULT_CHUNK_ROWS = 8_192;
+    private static final long WINDOW_BYTES = 64L << 20;
+
+    private final Executor pool;
+    private final int maxInFlight;
+    private final int chunkRows;
+
+    public CsvImporter() {
+        this(ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors() * 2, DEFAULT_CHUNK_ROWS);
+    }
+
+    public CsvImporter(Executor pool, int maxInFlight, int chunkRows) {
+        this.pool = pool;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.chunkRows = Math.max(1, chunkRows);
+    }
+
+    private record Row(long line, String text) {}
+
+    /** Imports {@code csv} (first record is the header) and returns the accept/reject report. */
+    public <T> ImportReport run(Path csv, RowMapper<T> mapper, Consumer<List<T>> sink) throws IOException {
+        return run(csv, mapper, (BatchSink<T>) (batch, rejects) -> sink.accept(batch));
+    }
+
+    /** As {@link #run(Path, RowMapper, Consumer)}, but the sink may reject rows it fails to apply. */
+    public <T> ImportReport run(Path csv, RowMapper<T> mapper, BatchSink<T> sink) throws IOException {
+        ImportReport report = new ImportReport(csv);
+        long started = System.nanoTime();
+        Semaphore permits = new Semaphore(maxInFlight);
+        Phaser inFlight = new Phaser(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try (FileChannel ch = FileChannel.open(csv, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long pos = 0;
+            long line = 1;
+            long window = WINDOW_BYTES;
+            boolean header = true;
+            List<Row> chunk = new ArrayList<>(chunkRows);
+
+            while (pos < size && failure.get() == null) {
+                int len = (int) Math.min(Math.min(window, size - pos), Integer.MAX_VALUE);
+                boolean last = pos + len == size;
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                int recStart = pos == 0 ? bomLength(buf) : 0;
+                long recLine = line;
+                long cur = line;
+                boolean quoted = false;
+                for (int i = recStart; i < len; i++) {
+                    byte b = buf.get(i);
+                    if (b == '"') {
+                        quoted = !quoted;
+                    } else if (b == '\n') {
+                        cur++;
+                        if (quoted) continue;
+                        String text = decode(buf, recStart, i);
+                        if (header) header = false;
+                        else if (!text.isEmpty()) chunk.add(new Row(recLine, text));
+                        recStart = i + 1;
+                        recLine = cur;
+                        if (chunk.size() >= chunkRows) {
+                            submit(chunk, mapper, sink, report, permits, inFlight, failure);
+                            chunk = new ArrayList<>(chunkRows);
+                        }
+                    }
+                }
+                if (last) {
+                    if (recStart < len) {
+                        String text = decode(buf, recStart, len);
+                        if (!header && !text.isEmpty()) chunk.add(new Row(recLine, text));
+                    }
+                    pos = size;
+                } else if (recStart == 0) {
+                    window *= 2; // a single record is larger than the window
+                } else {
+                    pos += recStart;
+                    line = recLine;
+                    window = WINDOW_BYTES;
+                }
+            }
+            if (!chunk.isEmpty()) submit(chunk, mapper, sink, report, permits, inFlight, failure);
+        } finally {
+            inFlight.arriveAndAwaitAdvance();
+        }
+        Throwable t = failure.get();
+        if (t != null) throw new IOException("Import of " + csv + " failed: " + t.getMessage(), t);
+        report.finish((System.nanoTime() - started) / 1_000_000);
+        return report;
+    }
+
+    private <T> void submit(List<Row> chunk, RowMapper<T> mapper, BatchSink<T> sink, ImportReport report,
+                            Semaphore permits, Phaser inFlight, AtomicReference<Throwable> failure) throws IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        }
+        inFlight.register();
+        pool.execute(() -> {
+            try {
+                List<T> batch = new ArrayList<>(chunk.size());
+                List<Row> rows = new ArrayList<>(chunk.size());
+                for (Row r : chunk) {
+                    try {
+                        batch.add(mapper.map(CsvCodec.parse(r.text())));
+                        rows.add(r);
+                    } catch (RuntimeException ex) {
+                        report.reject(r.line(), r.text(), ex.getClass().getSimpleName() + ": " + ex.getMessage());
+                    }
+                }
+                int[] sinkRejects = {0};
+                if (!batch.isEmpty()) {
+                    sink.accept(batch, (index, reason) -> {
+                        Row r = rows.get(index);
+                        report.reject(r.line(), r.text(), reason);
+                        sinkRejects[0]++;
+                    });
+                }
+                report.accept(batch.size() - sinkRejects[0]);
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                permits.release();
+                inFlight.arriveAndDeregister();
+            }
+        });
+    }
+
+    private static int bomLength(MappedByteBuffer buf) {
+        return buf.limit() >= 3 && buf.get(0) == (byte) 0xEF && buf.get(1) == (byte) 0xBB && buf.get(2) == (byte) 0xBF ? 3 : 0;
+    }
+
+    private static String decode(MappedByteBuffer buf, int from, int to) {
+        if (to > from && buf.get(to - 1) == '\r') to--;
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
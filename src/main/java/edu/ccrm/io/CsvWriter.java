@@ -0,0 +1,86 @@
+package edu.ccrm.io;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Row-at-a-time CSV writer over a buffered file channel, optionally gzip-compressed.
+ * Rows are assembled in one reusable StringBuilder and flushed through a 64 KB buffer,
+ * so exporting millions of rows holds at most one row in memory.
+ * Write errors surface as {@link UncheckedIOException} so rows can be written from lambdas.
+ */
+public final class CsvWriter implements Closeable {
+    private static final int BUFFER = 64 * 1024;
+    private static final String EOL = System.lineSeparator();
+
+    private final Writer out;
+    private final StringBuilder row = new StringBuilder(128);
+    private boolean firstField = true;
+    private long rows;
+
+    private CsvWriter(Writer out) { this.out = out; }
+
+    /** Opens {@code path} for writing (truncating it); output is gzipped when the name ends in ".gz". */
+    public static CsvWriter open(Path path) throws IOException {
+        return open(path, path.getFileName().toString().endsWith(".gz"));
+    }
+
+    public static CsvWriter open(Path path, boolean gzip) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStream os = Channels.newOutputStream(ch);
+        os = gzip ? new GZIPOutputStream(os, BUFFER) : new BufferedOutputStream(os, BUFFER);
+        return new CsvWriter(new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), BUFFER));
+    }
+
+    public CsvWriter header(String... names) {
+        for (String n : names) field(n);
+        return endRow();
+    }
+
+    public CsvWriter field(String value) {
+        separate();
+        CsvCodec.appendField(row, value);
+        return this;
+    }
+
+    public CsvWriter field(int value) {
+        separate();
+        row.append(value);
+        return this;
+    }
+
+    /** Writes {@code value.toString()}, or an empty field for null. */
+    public CsvWriter field(Object value) {
+        return value == null ? field((String) null) : field(value.toString());
+    }
+
+    public CsvWriter endRow() {
+        row.append(EOL);
+        try {
+            out.append(row);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        row.setLength(0);
+        firstField = true;
+        rows++;
+        return this;
+    }
+
+    /** Rows written so far, including the header. */
+    public long rowCount() { return rows; }
+
+    private void separate() {
+        if (!firstField) row.append(',');
+        firstField = false;
+    }
+
+    @Override
+    public void close() throws IOException { out.close(); }
+}
@@ -1,70 +1,220 @@
 package edu.ccrm.io;
 
 import edu.ccrm.config.DataStore;
+import edu.ccrm.config.ReadView;
 import edu.ccrm.domain.Student;
 import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
 import edu.ccrm.domain.Semester;
+import edu.ccrm.service.BulkEnrollmentReport;
+import edu.ccrm.service.EnrollmentRequest;
 import edu.ccrm.service.StudentService;
 import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.util.LatencyHistogram;
+import edu.ccrm.util.Metrics;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Import / Export CSV simple implementation using NIO.2 + Streams.
+ * Import / Export CSV implementation using NIO.2 + Streams.
+ * Imports go through the streaming, parallel {@link CsvImporter}; fields may be quoted.
  *
  * Expected student CSV: id,regNo,fullName,email
  * Expected course CSV: code,title,credits,department,semester
+ * Expected enrollment CSV: regNo,courseCode,enrolledOn,marks (enrolledOn and marks may be blank)
  */
 public class ImportExportService {
     private final DataStore ds = DataStore.getInstance();
     private final StudentService ss = new StudentService();
     private final CourseService cs = new CourseService();
+    private final EnrollmentService es = new EnrollmentService();
+    private final CsvImporter importer = new CsvImporter();
 
-    public void importStudents(Path csv) throws IOException {
-        try (var lines = Files.lines(csv)) {
-            lines.skip(1).forEach(l -> {
-                String[] t = l.split(",", -1);
-                String id = t[0].isBlank() ? UUID.randomUUID().toString() : t[0];
-                String regNo = t[1];
-                String name = t[2];
-                String email = t[3];
-                Student s = new Student(id, regNo, name, email);
-                ds.addStudent(s);
-            });
+    private static final LatencyHistogram IMPORT_STUDENTS = Metrics.histogram("io.importStudents");
+    private static final LatencyHistogram IMPORT_COURSES = Metrics.histogram("io.importCourses");
+    private static final LatencyHistogram IMPORT_ENROLLMENTS = Metrics.histogram("io.importEnrollments");
+    private static final LatencyHistogram EXPORT_STUDENTS = Metrics.histogram("io.exportStudents");
+    private static final LatencyHistogram EXPORT_COURSES = Metrics.histogram("io.exportCourses");
+    private static final LatencyHistogram EXPORT_ENROLLMENTS = Metrics.histogram("io.exportEnrollments");
+    private static final LongAdder ROWS_IMPORTED = Metrics.counter("io.rowsImported");
+    private static final LongAdder ROWS_REJECTED = Metrics.counter("io.rowsRejected");
+    private static final LongAdder ROWS_EXPORTED = Metrics.counter("io.rowsExported");
+
+    private record EnrollmentRow(Student student, Course course, LocalDate enrolledOn, Integer marks) {}
+
+    /** Streams the file through {@link CsvImporter}; malformed rows end up in the returned report. */
+    public ImportReport importStudents(Path csv) throws IOException {
+        return imported(IMPORT_STUDENTS, () -> importer.run(csv, ImportExportService::parseStudent, ds::addStudents));
+    }
+
+    public ImportReport importCourses(Path csv) throws IOException {
+        return imported(IMPORT_COURSES, () -> importer.run(csv, ImportExportService::parseCourse, ds::addCourses));
+    }
+
+    /**
+     * Bulk-loads enrollments and marks. Students and courses are resolved through the store's indexes;
+     * each chunk goes through {@link EnrollmentService#enrollAll}, so the duplicate and credit rules
+     * run once per student group. A row for an existing enrollment only updates its marks.
+     */
+    public ImportReport importEnrollments(Path csv) throws IOException {
+        return imported(IMPORT_ENROLLMENTS, () -> importer.run(csv, this::parseEnrollment, this::applyEnrollments));
+    }
+
+    private EnrollmentRow parseEnrollment(List<String> t) {
+        requireFields(t, 2);
+        String regNo = t.get(0).trim();
+        String code = t.get(1).trim().toUpperCase();
+        Student s = ds.findStudentByRegNo(regNo).orElseThrow(() -> new IllegalArgumentException("unknown student " + regNo));
+        Course c = ds.findCourseByCode(code).orElseThrow(() -> new IllegalArgumentException("unknown course " + code));
+        String date = t.size() > 2 ? t.get(2).trim() : "";
+        String marks = t.size() > 3 ? t.get(3).trim() : "";
+        Integer m = marks.isEmpty() ? null : Integer.valueOf(marks);
+        if (m != null && (m < 0 || m > 100)) throw new IllegalArgumentException("Marks must be 0-100");
+        return new EnrollmentRow(s, c, date.isEmpty() ? LocalDate.now() : LocalDate.parse(date), m);
+    }
+
+    private void applyEnrollments(List<EnrollmentRow> batch, CsvImporter.Rejects rejects) {
+        List<EnrollmentRequest> requests = new ArrayList<>(batch.size());
+        for (EnrollmentRow row : batch) requests.add(new EnrollmentRequest(row.student(), row.course(), row.enrolledOn()));
+        List<BulkEnrollmentReport.Outcome> outcomes = es.enrollAll(requests).getOutcomes();
+        for (int i = 0; i < batch.size(); i++) {
+            EnrollmentRow row = batch.get(i);
+            BulkEnrollmentReport.Outcome o = outcomes.get(i);
+            try {
+                Enrollment e = o.enrollment();
+                // a duplicate row that carries marks re-grades the existing enrollment
+                if (o.status() == BulkEnrollmentReport.Status.DUPLICATE && row.marks() != null) {
+                    e = ds.findEnrollment(row.student(), row.course().getCode()).orElse(null);
+                }
+                if (e == null) {
+                    rejects.reject(i, o.message());
+                    continue;
+                }
+                if (row.marks() != null) es.recordMarks(e, row.marks());
+            } catch (RuntimeException ex) {
+                rejects.reject(i, ex.getMessage());
+            }
+        }
+    }
+
+    static Student parseStudent(List<String> t) {
+        requireFields(t, 4);
+        String id = t.get(0).isBlank() ? UUID.randomUUID().toString() : t.get(0).trim();
+        String regNo = t.get(1).trim();
+        if (regNo.isEmpty()) throw new IllegalArgumentException("regNo is blank");
+        return new Student(id, regNo, t.get(2), t.get(3));
+    }
+
+    static Course parseCourse(List<String> t) {
+        requireFields(t, 5);
+        String code = t.get(0).trim();
+        if (code.isEmpty()) throw new IllegalArgumentException("code is blank");
+        int credits = Integer.parseInt(t.get(2).trim());
+        Semester sem = Semester.valueOf(t.get(4).trim().toUpperCase());
+        return new Course.Builder(code).title(t.get(1)).credits(credits).department(t.get(3)).semester(sem).build();
+    }
+
+    @FunctionalInterface
+    private interface IoCall<T> { T call() throws IOException; }
+
+    private static ImportReport imported(LatencyHistogram latency, IoCall<ImportReport> run) throws IOException {
+        long start = System.nanoTime();
+        try {
+            ImportReport r = run.call();
+            ROWS_IMPORTED.add(r.getAccepted());
+            ROWS_REJECTED.add(r.getRejected());
+            return r;
+        } finally {
+            latency.recordSince(start);
         }
     }
 
-    public void importCourses(Path csv) throws IOException {
-        try (var lines = Files.lines(csv)) {
-            lines.skip(1).forEach(l -> {
-                String[] t = l.split(",", -1);
-                String code = t[0];
-                String title = t[1];
-                int credits = Integer.parseInt(t[2]);
-                String dept = t[3];
-                Semester sem = Semester.valueOf(t[4].toUpperCase());
-                Course c = new Course.Builder(code).title(title).credits(credits).department(dept).semester(sem).build();
-                ds.addCourse(c);
-            });
+    private static long exported(LatencyHistogram latency, IoCall<Long> run) throws IOException {
+        long start = System.nanoTime();
+        try {
+            long rows = run.call();
+            ROWS_EXPORTED.add(rows);
+            return rows;
+        } finally {
+            latency.recordSince(start);
         }
     }
 
-    public void exportStudents(Path out) throws IOException {
-        var lines = ds.listStudents().stream()
-                .map(s -> String.join(",", s.getId(), s.getRegNo(), s.getFullName(), s.getEmail()))
-                .collect(Collectors.toList());
-        lines.add(0, "id,regNo,fullName,email");
-        Files.write(out, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    private static void requireFields(List<String> t, int n) {
+        if (t.size() < n) throw new IllegalArgumentException("expected " + n + " fields, got " + t.size());
+    }
+
+    /**
+     * Exports stream rows straight from the store through {@link CsvWriter}; nothing is collected first.
+     * A ".gz" file name produces gzip output. Each returns the number of data rows written.
+     * Rows come from a {@link ReadView}, so a file is one point in time while writers carry on; pass
+     * the same view to several exports to make the files agree with each other.
+     */
+    public long exportStudents(Path out) throws IOException {
+        try (ReadView view = ds.openReadView()) { return exportStudents(view, out); }
+    }
+
+    public long exportStudents(ReadView view, Path out) throws IOException {
+        return exported(EXPORT_STUDENTS, () -> {
+            try (CsvWriter w = CsvWriter.open(out)) {
+                w.header("id", "regNo", "fullName", "email");
+                view.forEachStudent(s -> w.field(s.getId()).field(s.getRegNo()).field(s.getFullName()).field(s.getEmail()).endRow());
+                return w.rowCount() - 1;
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        });
+    }
+
+    public long exportCourses(Path out) throws IOException {
+        try (ReadView view = ds.openReadView()) { return exportCourses(view, out); }
+    }
+
+    public long exportCourses(ReadView view, Path out) throws IOException {
+        return exported(EXPORT_COURSES, () -> {
+            try (CsvWriter w = CsvWriter.open(out)) {
+                w.header("code", "title", "credits", "department", "semester");
+                view.forEachCourse(c -> w.field(c.getCode()).field(c.getTitle()).field(c.getCredits())
+                        .field(c.getDepartment()).field(c.getSemester().name()).endRow());
+                return w.rowCount() - 1;
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        });
+    }
+
+    /** Enrollment rows are regNo,courseCode,enrolledOn,marks (marks blank until graded). */
+    public long exportEnrollments(Path out) throws IOException {
+        try (ReadView view = ds.openReadView()) { return exportEnrollments(view, out); }
+    }
+
+    public long exportEnrollments(ReadView view, Path out) throws IOException {
+        return exported(EXPORT_ENROLLMENTS, () -> {
+            try (CsvWriter w = CsvWriter.open(out)) {
+                w.header("regNo", "courseCode", "enrolledOn", "marks");
+                view.forEachEnrollment(e -> w.field(e.getStudent().getRegNo()).field(e.getCourse().getCode())
+                        .field(e.getEnrolledOn()).field(view.getMarks(e)).endRow());
+                return w.rowCount() - 1;
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        });
+    }
+
+    /** Saves the whole store as a {@link BinarySnapshot}; much faster to reload than the CSVs. */
+    public BinarySnapshot.Stats saveSnapshot(Path out) throws IOException {
+        return BinarySnapshot.save(ds, out);
     }
 
-    public void exportCourses(Path out) throws IOException {
-        var lines = ds.listCourses().stream()
-                .map(c -> String.join(",", c.getCode(), c.getTitle(), String.valueOf(c.getCredits()), c.getDepartment(), c.getSemester().name()))
-                .collect(Collectors.toList());
-        lines.add(0, "code,title,credits,department,semester");
-        Files.write(out, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    public BinarySnapshot.Stats loadSnapshot(Path in) throws IOException {
+        return BinarySnapshot.load(ds, in);
     }
 }
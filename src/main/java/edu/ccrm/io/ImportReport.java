@@ -0,0 +1,69 @@
+package edu.ccrm.io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcome of a bulk import: accepted/rejected counts plus the rejected rows
+ * (line number, raw text, reason). Only the first {@link #MAX_KEPT} rejects are kept in memory.
+ */
+public class ImportReport {
+    public static final int MAX_KEPT = 10_000;
+
+    public record Reject(long line, String raw, String reason) {
+        @Override public String toString() { return "line " + line + ": " + reason + " -> " + raw; }
+    }
+
+    private final Path source;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final List<Reject> rejects = Collections.synchronizedList(new ArrayList<>());
+    private volatile long elapsedMillis;
+
+    public ImportReport(Path source) { this.source = source; }
+
+    void accept(int count) { accepted.add(count); }
+
+    void reject(long line, String raw, String reason) {
+        rejected.increment();
+        if (rejects.size() < MAX_KEPT) rejects.add(new Reject(line, raw, reason));
+    }
+
+    void finish(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+
+    public Path getSource() { return source; }
+    public long getAccepted() { return accepted.sum(); }
+    public long getRejected() { return rejected.sum(); }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public List<Reject> getRejects() {
+        List<Reject> copy;
+        synchronized (rejects) { copy = new ArrayList<>(rejects); }
+        copy.sort(Comparator.comparingLong(Reject::line));
+        return copy;
+    }
+
+    /** Writes the kept rejects as "line,reason,raw" CSV. */
+    public void writeRejects(Path out) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(out)) {
+            w.write("line,reason,raw");
+            w.newLine();
+            for (Reject r : getRejects()) {
+                w.write(CsvCodec.format(String.valueOf(r.line()), r.reason(), r.raw()));
+                w.newLine();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Import of %s: %d accepted, %d rejected in %d ms",
+                source.getFileName(), getAccepted(), getRejected(), elapsedMillis);
+    }
+}
@@ -0,0 +1,386 @@
+package edu.ccrm.io;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.config.DataStore;
+import edu.ccrm.config.StoreJournal;
+import edu.ccrm.domain.*;
+import edu.ccrm.exception.TermClosedException;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Durable persistence for the DataStore: a write-ahead log of every mutation plus periodic snapshots.
+ *
+ * Layout under {@code <dataFolder>/store}: {@code wal-N.log} segments and {@code snapshot-N.dat}
+ * ({@link BinarySnapshot} format), where snapshot N holds the state produced by every segment before N.
+ * A checkpoint rotates the log to a new segment N, then dumps the live store into snapshot N while
+ * writers carry on. The dump is fuzzy; replay rules are idempotent (adds of existing records are
+ * skipped, enroll means "ensure enrolled", marks/deactivate are plain sets, and changes to a term
+ * that is already closed are skipped because the frozen term holds their result), so replaying
+ * the segments from N over the snapshot converges on the exact state.
+ *
+ * Log records are appended after the in-memory change, in per-student order, and fsync-batched by
+ * {@link WriteAheadLog}. By default a mutation doesn't return until its records are on disk: the
+ * store calls {@link #commit()} once its locks are released, so concurrent writers share fsyncs.
+ * With async commit ({@link AppConfig#isAsyncCommit()}) mutations return as soon as their records
+ * are buffered and a crash can lose the last few acknowledged ones; {@link #sync()} waits for
+ * everything so far.
+ */
+public final class PersistenceEngine implements StoreJournal, Closeable {
+    static final byte STUDENT = 1, COURSE = 2, ENROLL = 3, UNENROLL = 4, MARKS = 5,
+            DEACTIVATE_STUDENT = 6, DEACTIVATE_COURSE = 7, CLOSE_TERM = 8;
+
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d+)\\.dat");
+    public static final long DEFAULT_SNAPSHOT_EVERY = 1_000_000;
+
+    private final DataStore ds;
+    private final Path dir;
+    private final WriteAheadLog wal;
+    private final long snapshotEvery;
+    private final boolean asyncCommit;
+    private final ThreadLocal<long[]> lastLogged = ThreadLocal.withInitial(() -> new long[1]);
+    private final AtomicLong sinceSnapshot = new AtomicLong();
+    private final AtomicBoolean checkpointQueued = new AtomicBoolean();
+    private final ExecutorService checkpointer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ccrm-checkpoint");
+        t.setDaemon(true);
+        return t;
+    });
+    private final RecoveryReport recovery;
+
+    /** What startup recovery found. */
+    public record RecoveryReport(long snapshotId, long snapshotRecords, int segments, long logRecords, long dropped) {
+        @Override public String toString() {
+            return String.format("recovered snapshot %d (%d records) + %d log segment(s) (%d records, %d dropped)",
+                    snapshotId, snapshotRecords, segments, logRecords, dropped);
+        }
+    }
+
+    private PersistenceEngine(DataStore ds, Path dir, long snapshotEvery, boolean asyncCommit) throws IOException {
+        this.ds = ds;
+        this.dir = dir;
+        this.snapshotEvery = snapshotEvery;
+        this.asyncCommit = asyncCommit;
+        Files.createDirectories(dir);
+        this.recovery = recover();
+        long nextSegment = Math.max(latestSnapshotId(), lastSegmentId()) + 1;
+        this.wal = new WriteAheadLog(dir, nextSegment);
+    }
+
+    /** Recovers the store from {@code dataFolder/store} and starts journaling every mutation to it. */
+    public static PersistenceEngine open(Path dataFolder) throws IOException {
+        return open(DataStore.getInstance(), dataFolder, DEFAULT_SNAPSHOT_EVERY, AppConfig.getInstance().isAsyncCommit());
+    }
+
+    public static PersistenceEngine open(DataStore ds, Path dataFolder, long snapshotEvery) throws IOException {
+        return open(ds, dataFolder, snapshotEvery, false);
+    }
+
+    public static PersistenceEngine open(DataStore ds, Path dataFolder, long snapshotEvery, boolean asyncCommit) throws IOException {
+        PersistenceEngine engine = new PersistenceEngine(ds, dataFolder.resolve("store"), snapshotEvery, asyncCommit);
+        ds.setJournal(engine);
+        return engine;
+    }
+
+    public RecoveryReport getRecovery() { return recovery; }
+
+    // ---- journal -------------------------------------------------------------------------------
+
+    @Override public void studentAdded(Student s) { log(encodeStudent(s)); }
+    @Override public void courseAdded(Course c) { log(encodeCourse(c)); }
+    @Override public void enrolled(Enrollment e) { log(encodeEnroll(e)); }
+    @Override public void unenrolled(Enrollment e) {
+        log(record(UNENROLL, out -> { out.writeUTF(e.getStudent().getId()); out.writeUTF(e.getCourse().getCode()); }));
+    }
+    @Override public void marksRecorded(Enrollment e, int marks) { log(encodeMarks(e, marks)); }
+    @Override public void studentDeactivated(String id) { log(record(DEACTIVATE_STUDENT, out -> out.writeUTF(id))); }
+    @Override public void courseDeactivated(String code) { log(record(DEACTIVATE_COURSE, out -> out.writeUTF(code))); }
+    @Override public void termClosed(Term term) { log(record(CLOSE_TERM, out -> out.writeInt(term.key()))); }
+
+    /** Waits for the calling thread's records to be fsynced, unless commits are async. */
+    @Override public void commit() {
+        long[] last = lastLogged.get();
+        if (asyncCommit || last[0] == 0) return;
+        try {
+            wal.awaitDurable(last[0]);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("write-ahead log sync failed", ex);
+        }
+        last[0] = 0;
+    }
+
+    private void log(byte[] payload) {
+        try {
+            lastLogged.get()[0] = wal.append(payload);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("write-ahead log append failed", ex);
+        }
+        if (sinceSnapshot.incrementAndGet() >= snapshotEvery && checkpointQueued.compareAndSet(false, true)) {
+            checkpointer.execute(() -> {
+                try {
+                    checkpoint();
+                } catch (IOException ex) {
+                    System.err.println("Checkpoint failed: " + ex.getMessage());
+                } finally {
+                    checkpointQueued.set(false);
+                }
+            });
+        }
+    }
+
+    /** Waits until every mutation journaled so far is on disk. */
+    public void sync() throws IOException { wal.awaitDurable(wal.lastAppended()); }
+
+    /** Rotates the log, writes a snapshot of the live store and drops the segments it supersedes. */
+    public synchronized Path checkpoint() throws IOException {
+        long id;
+        try {
+            id = wal.rotate().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("checkpoint interrupted");
+        } catch (ExecutionException ex) {
+            throw new IOException("log rotation failed", ex.getCause());
+        }
+        sinceSnapshot.set(0);
+        Path target = dir.resolve(String.format("snapshot-%010d.dat", id));
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        BinarySnapshot.save(ds, tmp);
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        for (long seg : WriteAheadLog.listSegments(dir)) {
+            if (seg < id) Files.deleteIfExists(WriteAheadLog.segmentPath(dir, seg));
+        }
+        for (long snap : listSnapshots()) {
+            if (snap < id) Files.deleteIfExists(snapshotPath(snap));
+        }
+        return target;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ds.setJournal(null);
+        checkpointer.shutdown();
+        try {
+            checkpointer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        wal.close();
+    }
+
+    // ---- recovery ------------------------------------------------------------------------------
+
+    private RecoveryReport recover() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (p.getFileName().toString().endsWith(".dat.tmp")) Files.deleteIfExists(p); // interrupted checkpoint
+            }
+        }
+        Replayer replayer = new Replayer();
+        long snapshotId = latestSnapshotId();
+        long snapshotRecords = 0;
+        if (snapshotId > 0) {
+            snapshotRecords = BinarySnapshot.load(ds, snapshotPath(snapshotId)).total();
+        }
+        int segments = 0;
+        for (long seg : WriteAheadLog.listSegments(dir)) {
+            if (seg < snapshotId) continue;
+            Path file = WriteAheadLog.segmentPath(dir, seg);
+            long valid = WriteAheadLog.read(file, replayer::apply);
+            if (valid < Files.size(file)) {
+                // torn tail from a crash: cut it off so the segment stays well-formed
+                try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) { ch.truncate(valid); }
+            }
+            segments++;
+        }
+        long dropped = replayer.finish();
+        return new RecoveryReport(snapshotId, snapshotRecords, segments, replayer.applied, dropped);
+    }
+
+    /** Applies records to the store without journaling them; out-of-order dependents wait for their parent. */
+    private final class Replayer {
+        long applied;
+        private final List<byte[]> deferred = new ArrayList<>();
+        private final Set<String> deferredStudents = new HashSet<>();
+
+        void apply(byte[] payload) throws IOException {
+            if (!tryApply(payload, true)) {
+                deferred.add(payload);
+            } else {
+                applied++;
+            }
+        }
+
+        long finish() throws IOException {
+            long dropped = 0;
+            deferredStudents.clear();
+            for (byte[] payload : deferred) {
+                if (tryApply(payload, false)) applied++;
+                else dropped++;
+            }
+            deferred.clear();
+            return dropped;
+        }
+
+        private boolean tryApply(byte[] payload, boolean mayDefer) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            byte type = in.readByte();
+            switch (type) {
+                case STUDENT -> {
+                    String id = in.readUTF(), regNo = in.readUTF(), name = readNullable(in), email = readNullable(in);
+                    Optional<Student> existing = ds.findStudentById(id);
+                    if (existing.isEmpty() || !existing.get().getRegNo().equals(regNo)) {
+                        ds.addStudent(new Student(id, regNo, name, email));
+                    }
+                    return true;
+                }
+                case COURSE -> {
+                    String code = in.readUTF(), title = readNullable(in);
+                    int credits = in.readInt();
+                    String dept = readNullable(in);
+                    Semester sem = Semester.values()[in.readByte()];
+                    int capacity = in.available() >= 4 ? in.readInt() : Course.UNLIMITED; // absent in older logs
+                    if (ds.findCourseByCode(code).isEmpty()) {
+                        ds.addCourse(new Course.Builder(code).title(title).credits(credits).department(dept).semester(sem)
+                                .capacity(capacity).build());
+                    }
+                    return true;
+                }
+                case ENROLL, UNENROLL, MARKS -> {
+                    String sid = in.readUTF(), code = in.readUTF();
+                    Optional<Student> s = ds.findStudentById(sid);
+                    Optional<Course> c = ds.findCourseByCode(code);
+                    if (mayDefer && (deferredStudents.contains(sid) || s.isEmpty() || c.isEmpty())) {
+                        deferredStudents.add(sid);
+                        return false;
+                    }
+                    if (s.isEmpty() || c.isEmpty()) return false;
+                    Optional<Enrollment> e = ds.findEnrollment(s.get(), code);
+                    try {
+                        if (type == ENROLL) {
+                            if (e.isEmpty()) ds.addEnrollment(new Enrollment(s.get(), c.get(), in.readInt()));
+                        } else if (type == UNENROLL) {
+                            e.ifPresent(ds::removeEnrollment);
+                        } else {
+                            if (e.isEmpty()) return false;
+                            ds.recordMarks(e.get(), in.readByte());
+                        }
+                    } catch (TermClosedException frozen) {
+                        // logged before the close that the snapshot already contains
+                    }
+                    return true;
+                }
+                case DEACTIVATE_STUDENT -> {
+                    String id = in.readUTF();
+                    if (mayDefer && deferredStudents.contains(id)) return false;
+                    return ds.deactivateStudent(id);
+                }
+                case DEACTIVATE_COURSE -> { return ds.deactivateCourse(in.readUTF()); }
+                case CLOSE_TERM -> {
+                    ds.closeTerm(Term.ofKey(in.readInt()));
+                    return true;
+                }
+                default -> throw new IOException("unknown log record type " + type);
+            }
+        }
+    }
+
+    // ---- encoding ------------------------------------------------------------------------------
+
+    @FunctionalInterface
+    private interface Body { void write(DataOutputStream out) throws IOException; }
+
+    private static byte[] record(byte type, Body body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            body.write(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeStudent(Student s) {
+        return record(STUDENT, out -> {
+            out.writeUTF(s.getId());
+            out.writeUTF(s.getRegNo());
+            writeNullable(out, s.getFullName());
+            writeNullable(out, s.getEmail());
+        });
+    }
+
+    private static byte[] encodeCourse(Course c) {
+        return record(COURSE, out -> {
+            out.writeUTF(c.getCode());
+            writeNullable(out, c.getTitle());
+            out.writeInt(c.getCredits());
+            writeNullable(out, c.getDepartment());
+            out.writeByte(c.getSemester().ordinal());
+            out.writeInt(c.getCapacity());
+        });
+    }
+
+    private static byte[] encodeEnroll(Enrollment e) {
+        return record(ENROLL, out -> {
+            out.writeUTF(e.getStudent().getId());
+            out.writeUTF(e.getCourse().getCode());
+            out.writeInt(e.getEnrolledOnEpochDay());
+        });
+    }
+
+    private static byte[] encodeMarks(Enrollment e, int marks) {
+        return record(MARKS, out -> {
+            out.writeUTF(e.getStudent().getId());
+            out.writeUTF(e.getCourse().getCode());
+            out.writeByte(marks);
+        });
+    }
+
+    private static void writeNullable(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // ---- files ---------------------------------------------------------------------------------
+
+    private Path snapshotPath(long id) { return dir.resolve(String.format("snapshot-%010d.dat", id)); }
+
+    private List<Long> listSnapshots() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> {
+                Matcher m = SNAPSHOT.matcher(p.getFileName().toString());
+                if (m.matches()) ids.add(Long.parseLong(m.group(1)));
+            });
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private long latestSnapshotId() throws IOException {
+        List<Long> ids = listSnapshots();
+        return ids.isEmpty() ? 0 : ids.get(ids.size() - 1);
+    }
+
+    private long lastSegmentId() throws IOException {
+        List<Long> ids = WriteAheadLog.listSegments(dir);
+        return ids.isEmpty() ? 0 : ids.get(ids.size() - 1);
+    }
+}
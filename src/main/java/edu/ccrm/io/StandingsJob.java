@@ -0,0 +1,106 @@
+package edu.ccrm.io;
+
+import edu.ccrm.config.ChangeStream;
+import edu.ccrm.config.DataStore;
+import edu.ccrm.config.StoreEvent;
+import edu.ccrm.domain.Term;
+import edu.ccrm.service.TermStandings;
+import edu.ccrm.util.LatencyHistogram;
+import edu.ccrm.util.Metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes the {@link TermStandings} table of each term as it closes, to
+ * {@code <dataFolder>/standings/standings-<term>.csv} (regNo, name, term credits, term credits
+ * earned, term GPA, credits earned, cumulative GPA, standing). Listens for term closes on the store's
+ * change stream and runs the batch on its own thread, so closing a term doesn't wait for it and the
+ * stream's other subscribers aren't held up. Terms closed while replaying the log at startup are
+ * not recomputed (start the job after recovery); {@link #run} recomputes one on demand.
+ */
+public final class StandingsJob implements AutoCloseable {
+    private static final LatencyHistogram LATENCY = Metrics.histogram("standings.run");
+    private static final LongAdder WRITTEN = Metrics.counter("standings.written");
+    private static final LongAdder FAILED = Metrics.counter("standings.failed");
+
+    private final DataStore ds;
+    private final Path dir;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ccrm-standings");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ChangeStream.Subscription subscription;
+
+    private StandingsJob(DataStore ds, Path dir) {
+        this.ds = ds;
+        this.dir = dir;
+        this.subscription = ds.events().subscribe("standings", 64, this::onEvents);
+    }
+
+    public static StandingsJob start(DataStore ds, Path dataFolder) throws IOException {
+        Path dir = dataFolder.resolve("standings");
+        Files.createDirectories(dir);
+        return new StandingsJob(ds, dir);
+    }
+
+    private void onEvents(List<StoreEvent> batch) {
+        for (StoreEvent e : batch) {
+            if (e instanceof StoreEvent.TermClosed closed) worker.execute(() -> runQuietly(closed.term()));
+        }
+    }
+
+    private void runQuietly(Term term) {
+        try {
+            run(term);
+        } catch (IOException | UncheckedIOException ex) {
+            FAILED.increment();
+            System.err.println("Standings for " + term + " failed: " + ex.getMessage());
+        }
+    }
+
+    public Path path(Term term) { return dir.resolve("standings-" + term + ".csv"); }
+
+    /** Computes the term's standings as of now and writes its file, on the calling thread. */
+    public TermStandings run(Term term) throws IOException {
+        long start = System.nanoTime();
+        TermStandings standings = TermStandings.compute(ds, term);
+        Path target = path(term);
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        try (CsvWriter w = CsvWriter.open(tmp)) {
+            w.header("regNo", "name", "termCredits", "termCreditsEarned", "termGpa", "creditsEarned", "cumulativeGpa", "standing");
+            standings.forEach(r -> w.field(r.student().getRegNo()).field(r.student().getFullName())
+                    .field(r.termCredits()).field(r.termCreditsEarned()).field(round2(r.termGpa()))
+                    .field(r.creditsEarned()).field(round2(r.cumulativeGpa())).field(r.standing().name()).endRow());
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        WRITTEN.increment();
+        LATENCY.recordSince(start);
+        return standings;
+    }
+
+    private static Double round2(double gpa) { return Math.round(gpa * 100) / 100.0; }
+
+    /** Stops listening and waits for queued terms to be written. */
+    @Override
+    public void close() {
+        subscription.close();
+        worker.shutdown();
+        try {
+            worker.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
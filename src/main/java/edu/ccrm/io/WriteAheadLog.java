@@ -0,0 +1,226 @@
+package edu.ccrm.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, segmented log with group commit.
+ * Appenders copy their record into a shared buffer and return immediately with a sequence number;
+ * a single writer thread drains whatever has accumulated, writes it and fsyncs once per batch,
+ * so one fsync covers every record that arrived while the previous one was in progress.
+ *
+ * Record framing: int payloadLength, int crc32c(payload), payload. A short or corrupt
+ * record marks the end of the log (a torn write from a crash).
+ */
+final class WriteAheadLog implements Closeable {
+    private static final Pattern SEGMENT = Pattern.compile("wal-(\\d+)\\.log");
+    private static final int MAX_PENDING_BYTES = 32 << 20;
+
+    private final Path dir;
+    private final Object monitor = new Object();
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(1 << 16);
+    private long appendedSeq;
+    private long durableSeq;
+    private long segmentId;
+    private FileChannel segment;
+    private CompletableFuture<Long> rotation;
+    private IOException failure;
+    private boolean closing;
+    private final Thread writer;
+
+    WriteAheadLog(Path dir, long segmentId) throws IOException {
+        this.dir = dir;
+        this.segmentId = segmentId;
+        this.segment = openSegment(segmentId);
+        this.writer = new Thread(this::writeLoop, "ccrm-wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    static Path segmentPath(Path dir, long id) { return dir.resolve(String.format("wal-%010d.log", id)); }
+
+    /** Segment ids present in {@code dir}, ascending. */
+    static List<Long> listSegments(Path dir) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return ids;
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> {
+                Matcher m = SEGMENT.matcher(p.getFileName().toString());
+                if (m.matches()) ids.add(Long.parseLong(m.group(1)));
+            });
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private FileChannel openSegment(long id) throws IOException {
+        return FileChannel.open(segmentPath(dir, id),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /** Frames and buffers one record; blocks only when the writer is {@value #MAX_PENDING_BYTES} bytes behind. */
+    long append(byte[] payload) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        synchronized (monitor) {
+            while (pending.size() > MAX_PENDING_BYTES && failure == null && !closing) {
+                awaitQuietly();
+            }
+            if (failure != null) throw failure;
+            if (closing) throw new IOException("write-ahead log is closed");
+            writeInt(pending, payload.length);
+            writeInt(pending, (int) crc.getValue());
+            pending.write(payload, 0, payload.length);
+            monitor.notifyAll();
+            return ++appendedSeq;
+        }
+    }
+
+    /** Blocks until every record up to {@code seq} has been fsynced. */
+    void awaitDurable(long seq) throws IOException {
+        synchronized (monitor) {
+            while (durableSeq < seq && failure == null) awaitQuietly();
+            if (failure != null) throw failure;
+        }
+    }
+
+    long lastAppended() {
+        synchronized (monitor) { return appendedSeq; }
+    }
+
+    /** Flushes pending records, then starts a new segment; completes with the new segment id. */
+    CompletableFuture<Long> rotate() {
+        synchronized (monitor) {
+            if (rotation == null) rotation = new CompletableFuture<>();
+            monitor.notifyAll();
+            return rotation;
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            byte[] batch;
+            long upTo;
+            CompletableFuture<Long> rotateNow;
+            boolean stop;
+            synchronized (monitor) {
+                while (pending.size() == 0 && rotation == null && !closing) awaitQuietly();
+                batch = pending.toByteArray();
+                pending = new ByteArrayOutputStream(Math.max(1 << 16, batch.length));
+                upTo = appendedSeq;
+                rotateNow = rotation;
+                rotation = null;
+                stop = closing;
+                monitor.notifyAll();
+            }
+            try {
+                if (batch.length > 0) {
+                    ByteBuffer buf = ByteBuffer.wrap(batch);
+                    while (buf.hasRemaining()) segment.write(buf);
+                    segment.force(false);
+                }
+                if (rotateNow != null) {
+                    segment.close();
+                    segment = openSegment(++segmentId);
+                    rotateNow.complete(segmentId);
+                }
+                synchronized (monitor) {
+                    durableSeq = upTo;
+                    monitor.notifyAll();
+                }
+            } catch (IOException ex) {
+                synchronized (monitor) {
+                    failure = ex;
+                    monitor.notifyAll();
+                }
+                if (rotateNow != null) rotateNow.completeExceptionally(ex);
+                return;
+            }
+            if (stop) {
+                synchronized (monitor) {
+                    if (pending.size() == 0) return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (monitor) {
+            if (closing) return;
+            closing = true;
+            monitor.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+        if (failure != null) throw failure;
+    }
+
+    private void awaitQuietly() {
+        try {
+            monitor.wait();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting on the write-ahead log", ex);
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int v) {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    /**
+     * Reads the valid records of one segment file in order.
+     * Returns the byte offset just past the last valid record so a torn tail can be truncated.
+     */
+    static long read(Path file, RecordHandler handler) throws IOException {
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            CRC32C crc = new CRC32C();
+            while (true) {
+                int len;
+                try {
+                    len = in.readInt();
+                } catch (EOFException eof) {
+                    break;
+                }
+                if (len < 0 || len > (64 << 20)) break;
+                byte[] payload = new byte[len];
+                int expected;
+                try {
+                    expected = in.readInt();
+                    in.readFully(payload);
+                } catch (EOFException eof) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != expected) break;
+                handler.handle(payload);
+                valid += 8 + len;
+            }
+        }
+        return valid;
+    }
+
+    @FunctionalInterface
+    interface RecordHandler {
+        void handle(byte[] payload) throws IOException;
+    }
+}
@@ -0,0 +1,45 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of {@link EnrollmentService#enrollAll}: one {@link Outcome} per request, in request order.
+ */
+public class BulkEnrollmentReport {
+    public enum Status { ENROLLED, DUPLICATE, CREDIT_LIMIT, COURSE_FULL, TERM_CLOSED }
+
+    /** {@code enrollment} is the new enrollment when ENROLLED, otherwise null. */
+    public record Outcome(EnrollmentRequest request, Status status, Enrollment enrollment, String message) {
+        public boolean isEnrolled() { return status == Status.ENROLLED; }
+    }
+
+    private final List<Outcome> outcomes;
+    private final Map<Status, Integer> counts = new EnumMap<>(Status.class);
+    private final long elapsedMillis;
+
+    BulkEnrollmentReport(Outcome[] outcomes, long elapsedMillis) {
+        this.outcomes = Collections.unmodifiableList(Arrays.asList(outcomes));
+        for (Status s : Status.values()) counts.put(s, 0);
+        for (Outcome o : outcomes) counts.merge(o.status(), 1, Integer::sum);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<Outcome> getOutcomes() { return outcomes; }
+    public int count(Status status) { return counts.get(status); }
+    public int getEnrolled() { return count(Status.ENROLLED); }
+    public int getRejected() { return outcomes.size() - getEnrolled(); }
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    @Override
+    public String toString() {
+        return String.format("Bulk enrollment: %d enrolled, %d duplicate, %d over credit limit, %d course full, %d term closed in %d ms",
+                getEnrolled(), count(Status.DUPLICATE), count(Status.CREDIT_LIMIT), count(Status.COURSE_FULL),
+                count(Status.TERM_CLOSED), elapsedMillis);
+    }
+}
@@ -2,6 +2,7 @@ package edu.ccrm.service;
 
 import edu.ccrm.config.DataStore;
 import edu.ccrm.domain.*;
+import edu.ccrm.util.SearchIndex;
 
 import java.util.List;
 
@@ -12,11 +13,16 @@ public class CourseService {
     private final DataStore ds = DataStore.getInstance();
 
     public Course createCourse(String code, String title, int credits, String department, Semester semester) {
+        return createCourse(code, title, credits, department, semester, Course.UNLIMITED);
+    }
+
+    public Course createCourse(String code, String title, int credits, String department, Semester semester, int capacity) {
         Course c = new Course.Builder(code)
                 .title(title)
                 .credits(credits)
                 .department(department)
                 .semester(semester)
+                .capacity(capacity)
                 .build();
         ds.addCourse(c);
         return c;
@@ -24,4 +30,7 @@ public class CourseService {
 
     public List<Course> listCourses() { return ds.listCourses(); }
     public List<Course> findByDepartment(String dept) { return ds.searchCoursesByDepartment(dept); }
+    /** Ranked prefix/fuzzy matches on title or code. */
+    public List<SearchIndex.Hit<Course>> search(String query, int limit) { return ds.searchCourses(query, limit); }
+    public void deactivateCourse(String code) { ds.deactivateCourse(code); }
 }
@@ -0,0 +1,217 @@
+package edu.ccrm.service;
+
+import edu.ccrm.config.DataStore;
+import edu.ccrm.config.ReadView;
+import edu.ccrm.domain.*;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Column-oriented copy of the enrollments for reporting: one row per enrollment stored as
+ * {@code int course, byte marks (-1 = ungraded), byte grade ordinal} in parallel primitive arrays,
+ * with course attributes kept in small dimension arrays. Rows are grouped by student, so the student
+ * index column is stored as offsets ({@code rowStart[s]..rowStart[s+1]}) rather than one int per
+ * row, and per-student aggregates need no hashing.
+ *
+ * Aggregations split the rows into fixed-size chunks, fold each chunk into a private partial
+ * array on the common fork-join pool, and merge the partials, so no shared state is written
+ * concurrently. A capture is a point-in-time copy, read through a {@link ReadView}; take a new
+ * one to see later changes.
+ */
+public final class EnrollmentAnalytics {
+    private static final int CHUNK = 1 << 16;
+    private static final Grade[] GRADES = Grade.values();
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final int[] POINTS = Arrays.stream(GRADES).mapToInt(Grade::getPoints).toArray();
+    /** GPA histogram bucket width in grade points (0-10 scale). */
+    public static final double GPA_BUCKET = 0.5;
+
+    // fact columns
+    private final int[] course;
+    private final byte[] marks;
+    private final byte[] grade;
+    private final int[] rowStart;
+    private final int rows;
+
+    // dimensions
+    private final Course[] courses;
+    private final int[] courseDept;
+    private final byte[] courseSemester;
+    private final String[] departments;
+    private final int students;
+
+    public record CourseGrades(String code, String title, long enrollments, long[] byGrade) {}
+    public record DepartmentAverage(String department, long enrollments, long graded, double averageMarks, double averageGradePoints) {}
+    public record CourseCount(String code, Semester semester, long enrollments) {}
+
+    private EnrollmentAnalytics(int[] course, byte[] marks, byte[] grade, int[] rowStart, int rows,
+                                Course[] courses, int[] courseDept, byte[] courseSemester, String[] departments) {
+        this.course = course;
+        this.marks = marks;
+        this.grade = grade;
+        this.rowStart = rowStart;
+        this.rows = rows;
+        this.courses = courses;
+        this.courseDept = courseDept;
+        this.courseSemester = courseSemester;
+        this.departments = departments;
+        this.students = rowStart.length - 1;
+    }
+
+    /** Copies the store's current enrollments into columns. */
+    public static EnrollmentAnalytics capture(DataStore ds) {
+        try (ReadView view = ds.openReadView()) { return capture(view); }
+    }
+
+    /** Copies the enrollments as the view sees them into columns. */
+    public static EnrollmentAnalytics capture(ReadView view) {
+        List<Course> courseList = view.listCourses();
+        Map<String, Integer> courseIndex = new HashMap<>(courseList.size() * 2);
+        Map<String, Integer> deptIndex = new LinkedHashMap<>();
+        int[] courseDept = new int[courseList.size()];
+        byte[] courseSemester = new byte[courseList.size()];
+        for (int c = 0; c < courseList.size(); c++) {
+            Course co = courseList.get(c);
+            courseIndex.put(co.getCode(), c);
+            String dept = co.getDepartment() == null ? "" : co.getDepartment();
+            courseDept[c] = deptIndex.computeIfAbsent(dept, k -> deptIndex.size());
+            courseSemester[c] = (byte) (co.getSemester() == null ? -1 : co.getSemester().ordinal());
+        }
+
+        List<Student> studentList = view.listStudents();
+        int capacity = Math.max(16, studentList.size() * 4);
+        int[] courseCol = new int[capacity];
+        byte[] marksCol = new byte[capacity];
+        byte[] gradeCol = new byte[capacity];
+        int[] rowStart = new int[studentList.size() + 1];
+        int n = 0;
+        for (int s = 0; s < studentList.size(); s++) {
+            rowStart[s] = n;
+            for (Enrollment e : view.listEnrollmentsForStudent(studentList.get(s))) {
+                Integer c = courseIndex.get(e.getCourse().getCode());
+                if (c == null) continue; // course replaced since (the view lists the original)
+                if (n == courseCol.length) {
+                    int grown = n + (n >> 1);
+                    courseCol = Arrays.copyOf(courseCol, grown);
+                    marksCol = Arrays.copyOf(marksCol, grown);
+                    gradeCol = Arrays.copyOf(gradeCol, grown);
+                }
+                int m = view.marksOf(e);
+                courseCol[n] = c;
+                marksCol[n] = (byte) m;
+                gradeCol[n] = (byte) (m == Enrollment.NO_MARKS ? Grade.I.ordinal() : Grade.fromMarks(m).ordinal());
+                n++;
+            }
+        }
+        rowStart[studentList.size()] = n;
+        return new EnrollmentAnalytics(courseCol, marksCol, gradeCol, rowStart, n,
+                courseList.toArray(Course[]::new), courseDept, courseSemester, deptIndex.keySet().toArray(String[]::new));
+    }
+
+    public int rowCount() { return rows; }
+    public int studentCount() { return students; }
+
+    /** Folds row chunks into per-chunk long arrays of {@code width} in parallel and sums them. */
+    private long[] aggregate(int from, int to, int width, ChunkFold fold) {
+        int chunks = (to - from + CHUNK - 1) / CHUNK;
+        return IntStream.range(0, Math.max(1, chunks)).parallel()
+                .mapToObj(k -> {
+                    long[] acc = new long[width];
+                    fold.apply(from + k * CHUNK, Math.min(to, from + (k + 1) * CHUNK), acc);
+                    return acc;
+                })
+                .reduce((a, b) -> {
+                    for (int i = 0; i < a.length; i++) a[i] += b[i];
+                    return a;
+                })
+                .orElseGet(() -> new long[width]);
+    }
+
+    @FunctionalInterface
+    private interface ChunkFold { void apply(int from, int to, long[] acc); }
+
+    /**
+     * Students per GPA bucket of width {@link #GPA_BUCKET} (index = floor(gpa / width), 10.0 in the last);
+     * students with nothing graded are left out, matching {@link Student#getGpa()}'s unweighted average.
+     */
+    public long[] gpaHistogram() {
+        int buckets = (int) (10 / GPA_BUCKET) + 1;
+        return aggregate(0, students, buckets, (from, to, acc) -> {
+            for (int s = from; s < to; s++) {
+                int points = 0, graded = 0;
+                for (int r = rowStart[s]; r < rowStart[s + 1]; r++) {
+                    if (marks[r] < 0) continue;
+                    points += POINTS[grade[r]];
+                    graded++;
+                }
+                if (graded > 0) acc[Math.min(buckets - 1, (int) ((double) points / graded / GPA_BUCKET))]++;
+            }
+        });
+    }
+
+    /** Per-course counts indexed by {@link Grade} ordinal (ungraded rows count as {@code I}). */
+    public List<CourseGrades> gradeDistributionByCourse() {
+        int g = GRADES.length;
+        long[] counts = aggregate(0, rows, courses.length * g, (from, to, acc) -> {
+            for (int r = from; r < to; r++) acc[course[r] * g + grade[r]]++;
+        });
+        List<CourseGrades> out = new ArrayList<>(courses.length);
+        for (int c = 0; c < courses.length; c++) {
+            long[] byGrade = Arrays.copyOfRange(counts, c * g, (c + 1) * g);
+            out.add(new CourseGrades(courses[c].getCode(), courses[c].getTitle(), Arrays.stream(byGrade).sum(), byGrade));
+        }
+        out.sort(Comparator.comparing(CourseGrades::code));
+        return out;
+    }
+
+    /** Average marks and grade points of graded enrollments, per course department. */
+    public List<DepartmentAverage> departmentAverages() {
+        int d = departments.length;
+        // per department: enrollments, graded, marks sum, grade point sum
+        long[] acc4 = aggregate(0, rows, d * 4, (from, to, acc) -> {
+            for (int r = from; r < to; r++) {
+                int base = courseDept[course[r]] * 4;
+                acc[base]++;
+                if (marks[r] >= 0) {
+                    acc[base + 1]++;
+                    acc[base + 2] += marks[r];
+                    acc[base + 3] += POINTS[grade[r]];
+                }
+            }
+        });
+        List<DepartmentAverage> out = new ArrayList<>(d);
+        for (int i = 0; i < d; i++) {
+            long graded = acc4[i * 4 + 1];
+            out.add(new DepartmentAverage(departments[i], acc4[i * 4], graded,
+                    graded == 0 ? 0 : (double) acc4[i * 4 + 2] / graded,
+                    graded == 0 ? 0 : (double) acc4[i * 4 + 3] / graded));
+        }
+        out.sort(Comparator.comparing(DepartmentAverage::department));
+        return out;
+    }
+
+    /** Enrollments per course, most enrolled first. */
+    public List<CourseCount> enrollmentsPerCourse() {
+        long[] counts = aggregate(0, rows, courses.length, (from, to, acc) -> {
+            for (int r = from; r < to; r++) acc[course[r]]++;
+        });
+        List<CourseCount> out = new ArrayList<>(courses.length);
+        for (int c = 0; c < courses.length; c++) out.add(new CourseCount(courses[c].getCode(), courses[c].getSemester(), counts[c]));
+        out.sort(Comparator.comparingLong(CourseCount::enrollments).reversed().thenComparing(CourseCount::code));
+        return out;
+    }
+
+    /** Enrollments per semester of the course they are in. */
+    public Map<Semester, Long> enrollmentsPerSemester() {
+        long[] counts = aggregate(0, rows, SEMESTERS.length, (from, to, acc) -> {
+            for (int r = from; r < to; r++) {
+                int sem = courseSemester[course[r]];
+                if (sem >= 0) acc[sem]++;
+            }
+        });
+        Map<Semester, Long> out = new EnumMap<>(Semester.class);
+        for (Semester s : SEMESTERS) out.put(s, counts[s.ordinal()]);
+        return out;
+    }
+}
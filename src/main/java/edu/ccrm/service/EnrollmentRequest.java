@@ -0,0 +1,18 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Student;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/** One (student, course) pair for {@link EnrollmentService#enrollAll}. */
+public record EnrollmentRequest(Student student, Course course, LocalDate enrolledOn) {
+    public EnrollmentRequest {
+        Objects.requireNonNull(student, "student");
+        Objects.requireNonNull(course, "course");
+        Objects.requireNonNull(enrolledOn, "enrolledOn");
+    }
+
+    public EnrollmentRequest(Student student, Course course) { this(student, course, LocalDate.now()); }
+}
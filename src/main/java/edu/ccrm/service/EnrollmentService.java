@@ -2,42 +2,264 @@ package edu.ccrm.service;
 
 import edu.ccrm.config.DataStore;
 import edu.ccrm.domain.*;
+import edu.ccrm.exception.CourseFullException;
 import edu.ccrm.exception.DuplicateEnrollmentException;
 import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.exception.TermClosedException;
+import edu.ccrm.util.LatencyHistogram;
+import edu.ccrm.util.Metrics;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
 /**
  * Enrollment service: enroll/unenroll and record grades.
- * Demonstrates business rule: max credits per semester (example=18).
+ * Demonstrates business rule: max credits per term (example=18). An enrollment's term is the
+ * next offering of the course's semester on the enrollment date (see {@link Term#keyFor}); closed
+ * terms take no new enrollments.
+ * Checks and updates for one student run under that student's lock, so concurrent
+ * enrolls for the same student serialize while different students proceed in parallel.
+ * Course seats are taken with a compare-and-set on the course's seat counter, so racing
+ * enrolls for the last seats of a course never oversell it and never block each other.
+ * A seat freed by {@link #unenroll} goes to the head of the course's FIFO waitlist.
  */
 public class EnrollmentService {
     private final DataStore ds = DataStore.getInstance();
     private static final int MAX_CREDITS = 18;
+    // below this many students a bulk enroll runs on the calling thread
+    private static final int PARALLEL_GROUPS = 64;
+    private static final LatencyHistogram ENROLL_LATENCY = Metrics.histogram("enrollment.enroll");
+    private static final LatencyHistogram ENROLL_ALL_LATENCY = Metrics.histogram("enrollment.enrollAll");
+    private static final LatencyHistogram MARKS_LATENCY = Metrics.histogram("enrollment.recordMarks");
+    private static final LongAdder DUPLICATES = Metrics.counter("enrollment.rejected.duplicate");
+    private static final LongAdder OVER_LIMIT = Metrics.counter("enrollment.rejected.creditLimit");
+    private static final LongAdder FULL = Metrics.counter("enrollment.rejected.courseFull");
+    private static final LongAdder CLOSED = Metrics.counter("enrollment.rejected.termClosed");
+    private static final LongAdder PROMOTED = Metrics.counter("enrollment.waitlist.promoted");
 
     public Enrollment enroll(Student s, Course c) throws DuplicateEnrollmentException {
-        // duplicate check
-        if (s.getEnrolledCourseCodes().contains(c.getCode())) {
-            throw new DuplicateEnrollmentException("Student already enrolled in " + c.getCode());
+        return enroll(s, c, LocalDate.now());
+    }
+
+    /** Enrolls with an explicit date (bulk loads of historical enrollments). */
+    public Enrollment enroll(Student s, Course c, LocalDate enrolledOn) throws DuplicateEnrollmentException {
+        long start = System.nanoTime();
+        int term = Term.keyFor(c.getSemester(), (int) enrolledOn.toEpochDay());
+        s.getLock().lock();
+        try {
+            // duplicate check
+            if (s.isEnrolledIn(c)) {
+                DUPLICATES.increment();
+                throw new DuplicateEnrollmentException("Student already enrolled in " + c.getCode());
+            }
+            if (ds.isTermClosed(term)) {
+                CLOSED.increment();
+                throw new TermClosedException("Term " + Term.ofKey(term) + " is closed");
+            }
+            // credit check against the student's running total for the term
+            if (s.getTermCredits(term) + c.getCredits() > MAX_CREDITS) {
+                OVER_LIMIT.increment();
+                throw new MaxCreditLimitExceededException(overLimit(term));
+            }
+            if (!c.tryTakeSeat()) {
+                FULL.increment();
+                throw new CourseFullException(c.getCode() + " is full (" + c.getCapacity() + " seats)");
+            }
+            Enrollment e = new Enrollment(s, c, enrolledOn);
+            ds.addEnrollment(e, true);
+            return e;
+        } finally {
+            s.getLock().unlock();
+            ds.commit();
+            ENROLL_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Enrolls a batch of (student, course) pairs. Requests are grouped by student. Each group is
+     * checked against the duplicate, closed-term and per-term credit rules in request order. The
+     * accepted subset is added while the student's lock is held, so other enrolls for that student
+     * see all of it or none of it. A term that closes between the check and the add turns those
+     * requests into TERM_CLOSED and gives their seats back. Groups run in parallel once there are
+     * enough students. Rejections are reported per request; nothing is thrown for them.
+     */
+    public BulkEnrollmentReport enrollAll(Collection<EnrollmentRequest> requests) {
+        long start = System.nanoTime();
+        EnrollmentRequest[] reqs = requests.toArray(EnrollmentRequest[]::new);
+        Map<Student, List<Integer>> byStudent = new IdentityHashMap<>();
+        for (int i = 0; i < reqs.length; i++) byStudent.computeIfAbsent(reqs[i].student(), k -> new ArrayList<>()).add(i);
+        BulkEnrollmentReport.Outcome[] outcomes = new BulkEnrollmentReport.Outcome[reqs.length];
+        Stream<Map.Entry<Student, List<Integer>>> groups = byStudent.entrySet().stream();
+        if (byStudent.size() >= PARALLEL_GROUPS) groups = groups.parallel();
+        groups.forEach(g -> enrollGroup(g.getKey(), g.getValue(), reqs, outcomes));
+        ENROLL_ALL_LATENCY.recordSince(start);
+        return new BulkEnrollmentReport(outcomes, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void enrollGroup(Student s, List<Integer> indexes, EnrollmentRequest[] reqs, BulkEnrollmentReport.Outcome[] out) {
+        List<Enrollment> accepted = new ArrayList<>(indexes.size());
+        List<Integer> acceptedAt = new ArrayList<>(indexes.size());
+        s.getLock().lock();
+        try {
+            for (int i : indexes) {
+                EnrollmentRequest r = reqs[i];
+                Course c = r.course();
+                int term = Term.keyFor(c.getSemester(), (int) r.enrolledOn().toEpochDay());
+                if (s.isEnrolledIn(c) || containsCourse(accepted, c)) {
+                    DUPLICATES.increment();
+                    out[i] = new BulkEnrollmentReport.Outcome(r, BulkEnrollmentReport.Status.DUPLICATE, null,
+                            "Student already enrolled in " + c.getCode());
+                } else if (ds.isTermClosed(term)) {
+                    CLOSED.increment();
+                    out[i] = new BulkEnrollmentReport.Outcome(r, BulkEnrollmentReport.Status.TERM_CLOSED, null,
+                            "Term " + Term.ofKey(term) + " is closed");
+                } else if (s.getTermCredits(term) + acceptedCredits(accepted, term) + c.getCredits() > MAX_CREDITS) {
+                    OVER_LIMIT.increment();
+                    out[i] = new BulkEnrollmentReport.Outcome(r, BulkEnrollmentReport.Status.CREDIT_LIMIT, null,
+                            overLimit(term));
+                } else if (!c.tryTakeSeat()) {
+                    FULL.increment();
+                    out[i] = new BulkEnrollmentReport.Outcome(r, BulkEnrollmentReport.Status.COURSE_FULL, null,
+                            c.getCode() + " is full (" + c.getCapacity() + " seats)");
+                } else {
+                    Enrollment e = new Enrollment(s, c, r.enrolledOn());
+                    accepted.add(e);
+                    acceptedAt.add(i);
+                    out[i] = new BulkEnrollmentReport.Outcome(r, BulkEnrollmentReport.Status.ENROLLED, e, null);
+                }
+            }
+            addAccepted(accepted, acceptedAt, reqs, out);
+        } finally {
+            s.getLock().unlock();
+            ds.commit();
+        }
+    }
+
+    /**
+     * Stores the accepted enrollments (seats already taken) in one batch. The closed-term check ran
+     * outside the store's write gate, so a term may have closed since: the store skips those rows
+     * and gives their seats back, and their outcomes become TERM_CLOSED.
+     */
+    private void addAccepted(List<Enrollment> accepted, List<Integer> at, EnrollmentRequest[] reqs,
+                             BulkEnrollmentReport.Outcome[] out) {
+        List<Enrollment> closed = ds.addEnrollments(accepted, true);
+        for (Enrollment e : closed) {
+            int i = at.get(indexOf(accepted, e));
+            CLOSED.increment();
+            out[i] = new BulkEnrollmentReport.Outcome(reqs[i], BulkEnrollmentReport.Status.TERM_CLOSED, null,
+                    "Term " + e.getTerm() + " is closed");
+        }
+    }
+
+    private static int indexOf(List<Enrollment> accepted, Enrollment e) {
+        for (int k = 0; k < accepted.size(); k++) if (accepted.get(k) == e) return k;
+        throw new IllegalStateException("not in the batch");
+    }
+
+    // a student's accepted list stays within MAX_CREDITS per term, so it is only a handful of entries
+    private static boolean containsCourse(List<Enrollment> accepted, Course c) {
+        for (Enrollment e : accepted) if (e.getCourse().getCodeId() == c.getCodeId()) return true;
+        return false;
+    }
+
+    private static int acceptedCredits(List<Enrollment> accepted, int term) {
+        int credits = 0;
+        for (Enrollment e : accepted) if (e.getTermKey() == term) credits += e.getCourse().getCredits();
+        return credits;
+    }
+
+    private static String overLimit(int term) {
+        return "Enrolling exceeds max credits " + MAX_CREDITS + " for " + Term.ofKey(term);
+    }
+
+    /**
+     * Enrolls, or puts the student on the course's waitlist when it is full.
+     * Returns the enrollment, or empty if the student is waiting for a seat.
+     */
+    public Optional<Enrollment> enrollOrWaitlist(Student s, Course c) throws DuplicateEnrollmentException {
+        try {
+            return Optional.of(enroll(s, c));
+        } catch (CourseFullException full) {
+            ds.joinWaitlist(c, s);
+            // a seat may have been released between the failed attempt and joining the queue
+            promoteWaitlist(c);
+            return ds.findEnrollment(s, c.getCode());
+        }
+    }
+
+    /** Drops the student's enrollment in the course and promotes waitlisted students into the freed seat. */
+    public boolean unenroll(Student s, Course c) {
+        boolean removed;
+        s.getLock().lock();
+        try {
+            var eOpt = ds.findEnrollment(s, c.getCode());
+            removed = eOpt.isPresent() && ds.removeEnrollment(eOpt.get());
+        } finally {
+            s.getLock().unlock();
+            ds.commit();
         }
-        // basic credit check (sum of current credits in enrolled codes)
-        int currentCredits = s.getEnrolledCourseCodes().stream()
-                .map(code -> ds.findCourseByCode(code).map(Course::getCredits).orElse(0))
-                .mapToInt(Integer::intValue).sum();
-        if (currentCredits + c.getCredits() > MAX_CREDITS) {
-            throw new MaxCreditLimitExceededException("Enrolling exceeds max credits " + MAX_CREDITS);
+        // promotion locks other students, so it runs after this student's lock is released
+        if (removed && c.hasSeatLimit()) promoteWaitlist(c);
+        return removed;
+    }
+
+    /**
+     * Enrolls waitlisted students in FIFO order while the course has free seats. A student who can no
+     * longer be enrolled (already enrolled, over the credit limit) is dropped from the list; one who
+     * loses the seat to a concurrent enroll, or finds the course's current term closed, goes back to
+     * the head.
+     */
+    public int promoteWaitlist(Course c) {
+        int promoted = 0;
+        while (c.getSeatsLeft() > 0) {
+            Optional<Student> next = ds.pollWaitlist(c);
+            if (next.isEmpty()) break;
+            try {
+                enroll(next.get(), c);
+                promoted++;
+                PROMOTED.increment();
+            } catch (CourseFullException | TermClosedException notNow) {
+                ds.requeueWaitlistHead(c, next.get());
+                break;
+            } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException skipped) {
+                // not eligible any more; the next student gets the seat
+            }
         }
-        Enrollment e = new Enrollment(s, c);
-        s.enrollCourse(c.getCode());
-        ds.addEnrollment(e);
-        return e;
+        return promoted;
     }
 
     public void recordMarks(Enrollment e, int marks) {
-        e.recordMarks(marks);
+        long start = System.nanoTime();
+        try {
+            ds.recordMarks(e, marks);
+        } finally {
+            MARKS_LATENCY.recordSince(start);
+        }
     }
 
     public List<Enrollment> listEnrollmentsForStudent(Student s) {
         return ds.listEnrollmentsForStudent(s);
     }
+
+    public List<Enrollment> listEnrollmentsForStudent(Student s, Term term) {
+        return ds.listEnrollmentsForStudent(s, term);
+    }
+
+    /**
+     * Closes the term: its enrollments and grades are frozen and stop holding course seats, so
+     * waitlisted students are promoted into the seats that frees. Courses whose current offering is
+     * the closed term (or another closed one) keep their waitlists untouched. Returns false if already closed.
+     */
+    public boolean closeTerm(Term term) {
+        if (!ds.closeTerm(term)) return false;
+        int today = (int) LocalDate.now().toEpochDay();
+        for (Course c : ds.listCourses()) {
+            if (!c.hasSeatLimit() || ds.getWaitlist(c).isEmpty()) continue;
+            if (ds.isTermClosed(Term.keyFor(c.getSemester(), today))) continue;
+            promoteWaitlist(c);
+        }
+        return true;
+    }
 }
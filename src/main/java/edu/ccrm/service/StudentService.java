@@ -2,6 +2,7 @@ package edu.ccrm.service;
 
 import edu.ccrm.config.DataStore;
 import edu.ccrm.domain.Student;
+import edu.ccrm.util.SearchIndex;
 
 import java.util.List;
 import java.util.UUID;
@@ -20,8 +21,10 @@ public class StudentService {
     }
 
     public List<Student> listStudents() { return ds.listStudents(); }
+    /** Ranked prefix/fuzzy matches on name, regNo or email. */
+    public List<SearchIndex.Hit<Student>> search(String query, int limit) { return ds.searchStudents(query, limit); }
 
     public void deactivateStudent(String id) {
-        ds.findStudentById(id).ifPresent(Student::deactivate);
+        ds.deactivateStudent(id);
     }
 }
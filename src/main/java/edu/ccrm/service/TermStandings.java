@@ -0,0 +1,147 @@
+package edu.ccrm.service;
+
+import edu.ccrm.config.DataStore;
+import edu.ccrm.config.ReadView;
+import edu.ccrm.domain.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * End-of-term standings: for every student enrolled in the term, credit-weighted term GPA,
+ * cumulative GPA over every term up to and including it, credits earned and
+ * {@link AcademicStanding}. Each graded enrollment counts its grade points times the course credits;
+ * ungraded ones (grade I) count towards neither GPA nor credits earned, and an F is graded but
+ * earns no credits.
+ *
+ * Computed as a fork-join batch: the students are split in halves down to {@value #LEAF}-student
+ * leaves, and each leaf walks its students' enrollments into its own slots of primitive columns,
+ * so leaves share nothing and the time is proportional to enrollments divided by cores.
+ */
+public final class TermStandings {
+    private static final int LEAF = 256;
+    private static final AcademicStanding[] STANDINGS = AcademicStanding.values();
+    private static final byte NOT_ENROLLED = -1;
+
+    /** One student's line of the table. */
+    public record Row(Student student, int termCredits, int termCreditsEarned, double termGpa,
+                      int creditsEarned, double cumulativeGpa, AcademicStanding standing) {}
+
+    private final Term term;
+    private final Student[] students;
+    private final int[] termCredits, termEarned, totalEarned;
+    private final double[] termGpa, cumulativeGpa;
+    private final byte[] standing;
+    private int rows;
+
+    private TermStandings(Term term, Student[] students) {
+        this.term = term;
+        this.students = students;
+        int n = students.length;
+        termCredits = new int[n];
+        termEarned = new int[n];
+        totalEarned = new int[n];
+        termGpa = new double[n];
+        cumulativeGpa = new double[n];
+        standing = new byte[n];
+    }
+
+    /** Standings of the store as of now, on the common fork-join pool. */
+    public static TermStandings compute(DataStore ds, Term term) {
+        try (ReadView view = ds.openReadView()) { return compute(view, term, ForkJoinPool.commonPool()); }
+    }
+
+    public static TermStandings compute(ReadView view, Term term, ForkJoinPool pool) {
+        TermStandings t = new TermStandings(term, view.listStudents().toArray(Student[]::new));
+        pool.invoke(t.new Slice(view, 0, t.students.length));
+        for (byte b : t.standing) if (b != NOT_ENROLLED) t.rows++;
+        return t;
+    }
+
+    private final class Slice extends RecursiveAction {
+        private final ReadView view;
+        private final int from, to;
+
+        Slice(ReadView view, int from, int to) {
+            this.view = view;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Slice(view, from, mid), new Slice(view, mid, to));
+                return;
+            }
+            int key = term.key();
+            for (int i = from; i < to; i++) {
+                boolean enrolled = false;
+                int attempted = 0, earned = 0, termGraded = 0, termPoints = 0;
+                int totalGraded = 0, totalPoints = 0, total = 0;
+                for (Enrollment e : view.listEnrollmentsForStudent(students[i])) {
+                    int t = e.getTermKey();
+                    if (t > key) continue;
+                    int credits = e.getCourse().getCredits();
+                    if (t == key) {
+                        enrolled = true;
+                        attempted += credits;
+                    }
+                    int m = view.marksOf(e);
+                    if (m == Enrollment.NO_MARKS) continue;
+                    int points = Grade.fromMarks(m).getPoints();
+                    int earnedHere = points > 0 ? credits : 0;
+                    totalGraded += credits;
+                    totalPoints += points * credits;
+                    total += earnedHere;
+                    if (t == key) {
+                        termGraded += credits;
+                        termPoints += points * credits;
+                        earned += earnedHere;
+                    }
+                }
+                if (!enrolled) {
+                    standing[i] = NOT_ENROLLED;
+                    continue;
+                }
+                double tg = termGraded == 0 ? 0.0 : (double) termPoints / termGraded;
+                double cg = totalGraded == 0 ? 0.0 : (double) totalPoints / totalGraded;
+                termCredits[i] = attempted;
+                termEarned[i] = earned;
+                totalEarned[i] = total;
+                termGpa[i] = tg;
+                cumulativeGpa[i] = cg;
+                standing[i] = (byte) AcademicStanding.of(tg, termGraded, cg, totalGraded).ordinal();
+            }
+        }
+    }
+
+    public Term term() { return term; }
+    /** Students enrolled in the term (the table's rows). */
+    public int size() { return rows; }
+
+    /** Walks the rows in the store's student order. */
+    public void forEach(Consumer<? super Row> action) {
+        for (int i = 0; i < students.length; i++) {
+            if (standing[i] == NOT_ENROLLED) continue;
+            action.accept(new Row(students[i], termCredits[i], termEarned[i], termGpa[i],
+                    totalEarned[i], cumulativeGpa[i], STANDINGS[standing[i]]));
+        }
+    }
+
+    public Map<AcademicStanding, Integer> countByStanding() {
+        int[] n = new int[STANDINGS.length];
+        for (byte b : standing) if (b != NOT_ENROLLED) n[b]++;
+        Map<AcademicStanding, Integer> out = new EnumMap<>(AcademicStanding.class);
+        for (AcademicStanding s : STANDINGS) out.put(s, n[s.ordinal()]);
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        return term + " standings: " + rows + " students " + countByStanding();
+    }
+}
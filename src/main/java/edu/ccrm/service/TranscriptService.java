@@ -0,0 +1,148 @@
+package edu.ccrm.service;
+
+import edu.ccrm.config.DataStore;
+import edu.ccrm.config.StoreEvent;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+import edu.ccrm.util.Metrics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders student transcripts and keeps the rendered text, GPA and credits in a bounded,
+ * process-wide LRU cache keyed by student id. Entries are never invalidated eagerly: each one
+ * remembers the Student instance and the {@link Student#getVersion()} it was rendered at, and a
+ * lookup that finds an older version, or a student since replaced under the same id, re-renders.
+ * The cache is split into segments with their own lock so concurrent readers of different
+ * students rarely contend. Entries of students that changed are also dropped
+ * asynchronously from the store's change stream, so stale transcripts don't hold cache slots.
+ *
+ * Capacity defaults to 10,000 transcripts; override with {@code -Dccrm.transcriptCache=N}.
+ */
+public class TranscriptService {
+    private static final int SEGMENTS = 16;
+    private static final int CAPACITY = Integer.getInteger("ccrm.transcriptCache", 10_000);
+    private static final Segment[] CACHE = new Segment[SEGMENTS];
+    private static final Metrics.HitRate HITS = Metrics.hitRate("transcript.cache");
+
+    static {
+        for (int i = 0; i < SEGMENTS; i++) CACHE[i] = new Segment(Math.max(1, CAPACITY / SEGMENTS));
+        Metrics.gauge("transcript.cache.size", () -> stats().size());
+        DataStore.getInstance().events().subscribe("transcripts", 256, TranscriptService::evictChanged);
+    }
+
+    private final DataStore ds = DataStore.getInstance();
+
+    /** A rendered transcript; {@code gpa} is the unweighted average of graded enrollments. */
+    public record Transcript(long version, String text, double gpa, int credits) {}
+
+    public record CacheStats(long hits, long misses, long evictions, int size, int capacity) {
+        public double hitRatio() { return hits + misses == 0 ? 0 : (double) hits / (hits + misses); }
+    }
+
+    // the student instance a transcript was rendered for: a re-added student restarts at the same versions
+    private record Entry(Student owner, Transcript transcript) {}
+
+    private static final class Segment extends LinkedHashMap<String, Entry> {
+        private final int capacity;
+        private long evictions;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() <= capacity) return false;
+            evictions++;
+            return true;
+        }
+    }
+
+    private static Segment segment(String id) {
+        int h = id.hashCode();
+        return CACHE[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /** The student's current transcript, from the cache when nothing changed since it was rendered. */
+    public Transcript transcript(Student s) {
+        Segment seg = segment(s.getId());
+        long version = s.getVersion();
+        Entry cached;
+        synchronized (seg) { cached = seg.get(s.getId()); }
+        boolean hit = cached != null && cached.owner() == s && cached.transcript().version() == version;
+        if (HITS.record(hit)) return cached.transcript();
+
+        Transcript t = render(s, version);
+        // a change landed while rendering: hand back this copy but don't cache it
+        if (s.getVersion() != version) return t;
+        synchronized (seg) {
+            Entry cur = seg.get(s.getId());
+            if (cur == null || cur.owner() != s || cur.transcript().version() < version) {
+                seg.put(s.getId(), new Entry(s, t));
+            }
+        }
+        return t;
+    }
+
+    public String transcriptText(Student s) { return transcript(s).text(); }
+
+    private Transcript render(Student s, long version) {
+        List<Enrollment> el = ds.listEnrollmentsForStudent(s);
+        String nl = System.lineSeparator();
+        StringBuilder sb = new StringBuilder(64 + el.size() * 64).append("Transcript for: ").append(s.profile());
+        int points = 0, graded = 0, credits = 0;
+        if (el.isEmpty()) sb.append(nl).append("No enrollments.");
+        for (Enrollment e : el) {
+            e.appendTranscriptLine(sb.append(nl));
+            credits += e.getCourse().getCredits();
+            int m = e.getMarksValue();
+            if (m != Enrollment.NO_MARKS) {
+                points += Grade.fromMarks(m).getPoints();
+                graded++;
+            }
+        }
+        double gpa = graded == 0 ? 0 : (double) points / graded;
+        long hundredths = Math.round(gpa * 100);
+        sb.append(nl).append("GPA: ").append(hundredths / 100).append('.')
+                .append(hundredths % 100 < 10 ? "0" : "").append(hundredths % 100)
+                .append(" | Credits: ").append(credits);
+        return new Transcript(version, sb.toString(), gpa, credits);
+    }
+
+    /** Drops a student's cached transcript (not needed for correctness; versions already guard staleness). */
+    public void invalidate(String studentId) {
+        Segment seg = segment(studentId);
+        synchronized (seg) { seg.remove(studentId); }
+    }
+
+    private static void evictChanged(List<StoreEvent> batch) {
+        for (StoreEvent ev : batch) {
+            String id = null;
+            if (ev instanceof StoreEvent.Enrolled en) id = en.enrollment().getStudent().getId();
+            else if (ev instanceof StoreEvent.Unenrolled un) id = un.enrollment().getStudent().getId();
+            else if (ev instanceof StoreEvent.MarksRecorded mr) id = mr.enrollment().getStudent().getId();
+            else if (ev instanceof StoreEvent.StudentDeactivated sd) id = sd.studentId();
+            else if (ev instanceof StoreEvent.StudentAdded sa) id = sa.student().getId();
+            if (id == null) continue;
+            Segment seg = segment(id);
+            synchronized (seg) { seg.remove(id); }
+        }
+    }
+
+    public static CacheStats stats() {
+        int size = 0;
+        long evictions = 0;
+        for (Segment seg : CACHE) {
+            synchronized (seg) {
+                size += seg.size();
+                evictions += seg.evictions;
+            }
+        }
+        return new CacheStats(HITS.getHits(), HITS.getMisses(), evictions, size, CAPACITY);
+    }
+}
@@ -1,15 +1,59 @@
 package edu.ccrm.util;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Backup utility using NIO.2 walkFileTree and recursive directory size calculator.
+ *
+ * Incremental backups keep file contents in a content-addressed blob store
+ * ({@code <root>/blobs/ab/<sha-256>}) shared by every backup, plus one manifest per backup
+ * ({@code <root>/manifests/backup-<timestamp>.manifest}) listing path, size, mtime and hash.
+ * A file whose size and mtime match the previous manifest is not read again; a changed file is
+ * hashed while it is copied, and only stored if no blob with that hash exists yet.
+ * The copy records sizes and checksums as it goes, so the returned report needs no second walk.
  */
 public class BackupUtil {
+    private static final String MANIFEST_HEADER = "# ccrm-backup v1";
+    private static final int IO_BUFFER = 64 * 1024;
+    private static final LatencyHistogram BACKUP_LATENCY = Metrics.histogram("backup.incremental");
+    private static final LatencyHistogram RESTORE_LATENCY = Metrics.histogram("backup.restore");
+    private static final LongAdder BYTES_STORED = Metrics.counter("backup.bytesStored");
+    private static final LongAdder FILES_UNCHANGED = Metrics.counter("backup.filesUnchanged");
+
+    /** One file in a manifest. */
+    public record ManifestEntry(String path, long size, long mtimeMillis, String sha256) {}
+
+    /**
+     * Outcome of a backup or a verification. {@code checksum} is the {@link DirectoryWalker} tree
+     * checksum of the backed-up files; {@code problems} lists files that changed while being copied
+     * or blobs that are missing or corrupt.
+     */
+    public record VerificationReport(Path manifest, int files, long bytes, int unchanged, int newBlobs,
+                                     long bytesStored, long checksum, List<String> problems) {
+        public boolean isVerified() { return problems.isEmpty(); }
+        @Override public String toString() {
+            return String.format("%s: %d files, %d bytes (%d unchanged, %d new blobs, %d bytes stored), checksum %016x, %s",
+                    manifest.getFileName(), files, bytes, unchanged, newBlobs, bytesStored, checksum,
+                    isVerified() ? "verified" : problems.size() + " problem(s)");
+        }
+    }
 
     public static Path copyToTimestampedBackup(Path source, Path backupRoot) throws IOException {
         String ts = DateTimeFormatter.ISO_INSTANT.format(Instant.now()).replace(":", "-");
@@ -31,14 +75,245 @@ public class BackupUtil {
         return dest;
     }
 
-    public static long computeDirectorySize(Path dir) throws IOException {
-        final long[] size = {0};
-        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
-            @Override public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                size[0] += attrs.size();
+    /**
+     * Backs up {@code source} into {@code backupRoot} incrementally; {@code backupRoot} is skipped
+     * if it lies inside {@code source}. Files are hashed and copied in parallel.
+     */
+    public static VerificationReport incrementalBackup(Path source, Path backupRoot) throws IOException {
+        long start = System.nanoTime();
+        try {
+            VerificationReport report = backup(source, backupRoot);
+            BYTES_STORED.add(report.bytesStored());
+            FILES_UNCHANGED.add(report.unchanged());
+            return report;
+        } finally {
+            BACKUP_LATENCY.recordSince(start);
+        }
+    }
+
+    private static VerificationReport backup(Path source, Path backupRoot) throws IOException {
+        Path root = backupRoot.toAbsolutePath().normalize();
+        Path src = source.toAbsolutePath().normalize();
+        Path blobs = root.resolve("blobs");
+        Path manifests = root.resolve("manifests");
+        Files.createDirectories(blobs);
+        Files.createDirectories(manifests);
+
+        Map<String, ManifestEntry> previous = new HashMap<>();
+        Optional<Path> last = latestManifest(root);
+        if (last.isPresent()) {
+            for (ManifestEntry e : readManifest(last.get())) previous.put(e.path(), e);
+        }
+
+        Map<Path, BasicFileAttributes> files = new LinkedHashMap<>();
+        Files.walkFileTree(src, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return dir.equals(root) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) files.put(file, attrs);
                 return FileVisitResult.CONTINUE;
             }
         });
-        return size[0];
+
+        AtomicInteger unchanged = new AtomicInteger();
+        AtomicInteger newBlobs = new AtomicInteger();
+        AtomicLong stored = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong checksum = new AtomicLong();
+        List<String> problems = Collections.synchronizedList(new ArrayList<>());
+        List<ManifestEntry> entries;
+        try {
+            entries = files.entrySet().parallelStream().map(f -> {
+                try {
+                    Path file = f.getKey();
+                    BasicFileAttributes attrs = f.getValue();
+                    String rel = DirectoryWalker.relative(src, file);
+                    long mtime = attrs.lastModifiedTime().toMillis();
+                    ManifestEntry prev = previous.get(rel);
+                    ManifestEntry entry;
+                    if (prev != null && prev.size() == attrs.size() && prev.mtimeMillis() == mtime
+                            && Files.exists(blobPath(blobs, prev.sha256()))) {
+                        unchanged.incrementAndGet();
+                        entry = prev;
+                    } else {
+                        StoredBlob blob = storeBlob(file, blobs);
+                        if (blob.created()) {
+                            newBlobs.incrementAndGet();
+                            stored.addAndGet(blob.size());
+                        }
+                        if (blob.size() != attrs.size()
+                                || Files.getLastModifiedTime(file).toMillis() != mtime) {
+                            problems.add(rel + ": changed while being copied");
+                        }
+                        entry = new ManifestEntry(rel, blob.size(), mtime, blob.sha256());
+                    }
+                    bytes.addAndGet(entry.size());
+                    checksum.addAndGet(DirectoryWalker.fingerprint(rel, entry.sha256()));
+                    return entry;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }).sorted(Comparator.comparing(ManifestEntry::path)).collect(Collectors.toList());
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        String ts = DateTimeFormatter.ISO_INSTANT.format(Instant.now()).replace(":", "-");
+        Path manifest = manifests.resolve("backup-" + ts + ".manifest");
+        Path tmp = manifests.resolve(manifest.getFileName() + ".tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp)) {
+            w.write(MANIFEST_HEADER + " source=" + src);
+            w.newLine();
+            for (ManifestEntry e : entries) {
+                w.write(e.sha256() + "\t" + e.size() + "\t" + e.mtimeMillis() + "\t" + e.path());
+                w.newLine();
+            }
+        }
+        Files.move(tmp, manifest, StandardCopyOption.ATOMIC_MOVE);
+        return new VerificationReport(manifest, entries.size(), bytes.get(), unchanged.get(), newBlobs.get(),
+                stored.get(), checksum.get(), List.copyOf(problems));
+    }
+
+    /** Re-hashes every blob referenced by backup {@code name} in parallel and reports mismatches. */
+    public static VerificationReport verifyBackup(Path backupRoot, String name) throws IOException {
+        Path manifest = backupRoot.resolve("manifests").resolve(name + ".manifest");
+        if (!Files.exists(manifest)) throw new NoSuchFileException(manifest.toString());
+        Path blobs = backupRoot.resolve("blobs");
+        List<ManifestEntry> entries = readManifest(manifest);
+        List<String> problems = new ArrayList<>();
+        long bytes = 0, checksum = 0;
+        // many manifest entries share a blob; hash each distinct blob once
+        Map<String, Long> sizes = new HashMap<>();
+        for (ManifestEntry e : entries) sizes.put(e.sha256(), e.size());
+        Map<String, String> bad = new ConcurrentHashMap<>();
+        try {
+            sizes.entrySet().parallelStream().forEach(b -> {
+                Path blob = blobPath(blobs, b.getKey());
+                try {
+                    if (!Files.exists(blob)) bad.put(b.getKey(), "missing");
+                    else if (Files.size(blob) != b.getValue() || !DirectoryWalker.hashFile(blob).equals(b.getKey())) bad.put(b.getKey(), "corrupt");
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        for (ManifestEntry e : entries) {
+            bytes += e.size();
+            checksum += DirectoryWalker.fingerprint(e.path(), e.sha256());
+            String reason = bad.get(e.sha256());
+            if (reason != null) problems.add(e.path() + ": blob " + reason);
+        }
+        return new VerificationReport(manifest, entries.size(), bytes, 0, 0, 0, checksum, problems);
+    }
+
+    /** Manifest names (oldest first) of every backup under {@code backupRoot}. */
+    public static List<String> listBackups(Path backupRoot) throws IOException {
+        Path manifests = backupRoot.resolve("manifests");
+        if (!Files.isDirectory(manifests)) return List.of();
+        try (Stream<Path> s = Files.list(manifests)) {
+            return s.map(p -> p.getFileName().toString())
+                    .filter(n -> n.endsWith(".manifest"))
+                    .map(n -> n.substring(0, n.length() - ".manifest".length()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /** Rebuilds the tree recorded by backup {@code name} under {@code target}, restoring mtimes. */
+    public static int restore(Path backupRoot, String name, Path target) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return restoreFrom(backupRoot, name, target);
+        } finally {
+            RESTORE_LATENCY.recordSince(start);
+        }
+    }
+
+    private static int restoreFrom(Path backupRoot, String name, Path target) throws IOException {
+        Path manifest = backupRoot.resolve("manifests").resolve(name + ".manifest");
+        if (!Files.exists(manifest)) throw new NoSuchFileException(manifest.toString());
+        Path blobs = backupRoot.resolve("blobs");
+        Path base = target.toAbsolutePath().normalize();
+        List<ManifestEntry> entries = readManifest(manifest);
+        try {
+            entries.parallelStream().forEach(e -> {
+                Path dest = base.resolve(e.path()).normalize();
+                if (!dest.startsWith(base)) throw new UncheckedIOException(new IOException("unsafe path in manifest: " + e.path()));
+                try {
+                    Files.createDirectories(dest.getParent());
+                    Files.copy(blobPath(blobs, e.sha256()), dest, StandardCopyOption.REPLACE_EXISTING);
+                    Files.setLastModifiedTime(dest, FileTime.fromMillis(e.mtimeMillis()));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        return entries.size();
+    }
+
+    public static List<ManifestEntry> readManifest(Path manifest) throws IOException {
+        List<ManifestEntry> out = new ArrayList<>();
+        for (String line : Files.readAllLines(manifest)) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] t = line.split("\t", 4);
+            out.add(new ManifestEntry(t[3], Long.parseLong(t[1]), Long.parseLong(t[2]), t[0]));
+        }
+        return out;
+    }
+
+    private static Optional<Path> latestManifest(Path root) throws IOException {
+        List<String> names = listBackups(root);
+        if (names.isEmpty()) return Optional.empty();
+        return Optional.of(root.resolve("manifests").resolve(names.get(names.size() - 1) + ".manifest"));
+    }
+
+    private static Path blobPath(Path blobs, String sha256) {
+        return blobs.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private record StoredBlob(String sha256, long size, boolean created) {}
+
+    /** Copies {@code file} to a temp blob while hashing it, then keeps it only if the hash is new. */
+    private static StoredBlob storeBlob(Path file, Path blobs) throws IOException {
+        MessageDigest sha = DirectoryWalker.sha256();
+        Path tmp = Files.createTempFile(blobs, "incoming-", ".tmp");
+        long size = 0;
+        try {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buf = ByteBuffer.allocate(IO_BUFFER);
+                while (in.read(buf) >= 0) {
+                    buf.flip();
+                    sha.update(buf.array(), 0, buf.limit());
+                    size += buf.limit();
+                    while (buf.hasRemaining()) out.write(buf);
+                    buf.clear();
+                }
+            }
+            String hash = HexFormat.of().formatHex(sha.digest());
+            Path blob = blobPath(blobs, hash);
+            if (Files.exists(blob)) return new StoredBlob(hash, size, false);
+            Files.createDirectories(blob.getParent());
+            try {
+                Files.move(tmp, blob, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException raced) {
+                return new StoredBlob(hash, size, false); // another thread stored identical content
+            }
+            return new StoredBlob(hash, size, true);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Total size of the regular files under {@code dir}, summed by a parallel {@link DirectoryWalker}. */
+    public static long computeDirectorySize(Path dir) throws IOException {
+        return DirectoryWalker.scan(dir, false).bytes();
     }
 }
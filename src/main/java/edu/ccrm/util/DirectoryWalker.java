@@ -0,0 +1,146 @@
+package edu.ccrm.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join directory walker: each directory is a task, subdirectories are forked, and files are
+ * summed (and optionally hashed) in batches so a flat folder with many files still spreads out.
+ *
+ * The tree checksum is the sum of per-file fingerprints (see {@link #fingerprint}), so it does not
+ * depend on visiting order and matches the checksum an incremental backup reports for the same tree.
+ */
+public final class DirectoryWalker {
+    private static final int FILE_BATCH = 256;
+
+    /** Totals for one walk; {@code checksum} is 0 unless checksums were requested. */
+    public record Result(long files, long bytes, long checksum) {
+        Result plus(Result o) { return new Result(files + o.files, bytes + o.bytes, checksum + o.checksum); }
+        @Override public String toString() {
+            return String.format("%d files, %d bytes, checksum %016x", files, bytes, checksum);
+        }
+    }
+
+    private static final Result EMPTY = new Result(0, 0, 0);
+
+    private DirectoryWalker() {}
+
+    public static Result scan(Path root, boolean checksum) throws IOException {
+        return scan(root, checksum, null);
+    }
+
+    /** Walks {@code root}, skipping the {@code exclude} subtree if it is inside. */
+    public static Result scan(Path root, boolean checksum, Path exclude) throws IOException {
+        Path base = root.toAbsolutePath().normalize();
+        Path skip = exclude == null ? null : exclude.toAbsolutePath().normalize();
+        try {
+            return ForkJoinPool.commonPool().invoke(new DirTask(base, base, skip, checksum));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /** Order-independent fingerprint of one file: the first 8 bytes of SHA-256(path NUL contentHash). */
+    static long fingerprint(String relPath, String sha256Hex) {
+        MessageDigest md = sha256();
+        md.update(relPath.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+        md.update(sha256Hex.getBytes(StandardCharsets.US_ASCII));
+        return ByteBuffer.wrap(md.digest()).getLong();
+    }
+
+    static String relative(Path base, Path file) {
+        return base.relativize(file).toString().replace('\\', '/');
+    }
+
+    static String hashFile(Path file) throws IOException {
+        MessageDigest md = sha256();
+        byte[] buf = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int n; (n = in.read(buf)) > 0; ) md.update(buf, 0, n);
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class DirTask extends RecursiveTask<Result> {
+        private final Path base, dir, skip;
+        private final boolean checksum;
+
+        DirTask(Path base, Path dir, Path skip, boolean checksum) {
+            this.base = base; this.dir = dir; this.skip = skip; this.checksum = checksum;
+        }
+
+        @Override
+        protected Result compute() {
+            List<RecursiveTask<Result>> forks = new ArrayList<>();
+            List<Path> batch = new ArrayList<>();
+            Result local = EMPTY;
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path p : entries) {
+                    BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attrs.isDirectory()) {
+                        if (!p.equals(skip)) forks.add(fork(new DirTask(base, p, skip, checksum)));
+                    } else if (attrs.isRegularFile()) {
+                        if (!checksum) {
+                            local = local.plus(new Result(1, attrs.size(), 0));
+                        } else if (batch.add(p) && batch.size() == FILE_BATCH) {
+                            forks.add(fork(new HashTask(base, batch)));
+                            batch = new ArrayList<>();
+                        }
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            if (!batch.isEmpty()) local = local.plus(new HashTask(base, batch).compute());
+            for (RecursiveTask<Result> f : forks) local = local.plus(f.join());
+            return local;
+        }
+
+        private static <T extends RecursiveTask<Result>> T fork(T task) {
+            task.fork();
+            return task;
+        }
+    }
+
+    private static final class HashTask extends RecursiveTask<Result> {
+        private final Path base;
+        private final List<Path> files;
+
+        HashTask(Path base, List<Path> files) { this.base = base; this.files = files; }
+
+        @Override
+        protected Result compute() {
+            long bytes = 0, sum = 0;
+            try {
+                for (Path f : files) {
+                    bytes += Files.size(f);
+                    sum += fingerprint(relative(base, f), hashFile(f));
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return new Result(files.size(), bytes, sum);
+        }
+    }
+}
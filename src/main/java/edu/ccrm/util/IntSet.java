@@ -0,0 +1,45 @@
+package edu.ccrm.util;
+
+import java.util.Arrays;
+
+/**
+ * Small set of ints kept as a sorted array that is replaced, never modified, on every change:
+ * 16 bytes plus 4 per element, and readers need no lock. Meant for sets of a handful of
+ * elements with rare writes (a student's course ids); writers must be serialized by the caller.
+ */
+public final class IntSet {
+    private static final int[] EMPTY = new int[0];
+    private volatile int[] values = EMPTY;
+
+    public boolean contains(int v) { return Arrays.binarySearch(values, v) >= 0; }
+
+    public boolean add(int v) {
+        int[] cur = values;
+        int at = Arrays.binarySearch(cur, v);
+        if (at >= 0) return false;
+        at = -at - 1;
+        int[] next = new int[cur.length + 1];
+        System.arraycopy(cur, 0, next, 0, at);
+        next[at] = v;
+        System.arraycopy(cur, at, next, at + 1, cur.length - at);
+        values = next;
+        return true;
+    }
+
+    public boolean remove(int v) {
+        int[] cur = values;
+        int at = Arrays.binarySearch(cur, v);
+        if (at < 0) return false;
+        if (cur.length == 1) { values = EMPTY; return true; }
+        int[] next = new int[cur.length - 1];
+        System.arraycopy(cur, 0, next, 0, at);
+        System.arraycopy(cur, at + 1, next, at, cur.length - at - 1);
+        values = next;
+        return true;
+    }
+
+    public int size() { return values.length; }
+
+    /** Sorted copy of the elements. */
+    public int[] toArray() { return values.clone(); }
+}
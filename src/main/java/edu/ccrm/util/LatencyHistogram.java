@@ -0,0 +1,75 @@
+package edu.ccrm.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free, allocation-free latency histogram with HDR-style log-linear buckets: values below 16 ns
+ * get their own bucket, and every power-of-two range above that is split into 16 linear sub-buckets,
+ * so any reported percentile is within 1/16 (about 6%) of the true value. 976 buckets cover the full
+ * range of a long.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB + SUB;
+
+    /** Point-in-time view; all times in nanoseconds. */
+    public record Snapshot(long count, long mean, long p50, long p90, long p99, long p999, long max) {}
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts.incrementAndGet(index(v));
+        total.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /** Records the time elapsed since {@code startNanos} (a {@link System#nanoTime()} reading). */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    static int index(long v) {
+        if (v < SUB) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return (shift + 1) * SUB + (int) ((v >>> shift) & (SUB - 1));
+    }
+
+    /** Midpoint of the bucket's value range. */
+    static long valueAt(int index) {
+        if (index < SUB) return index;
+        int shift = index / SUB - 1;
+        long lower = (long) (SUB + index % SUB) << shift;
+        return lower + ((1L << shift) >>> 1);
+    }
+
+    public Snapshot snapshot() {
+        long[] c = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            c[i] = counts.get(i);
+            n += c[i];
+        }
+        if (n == 0) return new Snapshot(0, 0, 0, 0, 0, 0, 0);
+        return new Snapshot(n, sum.sum() / Math.max(1, total.sum()),
+                percentile(c, n, 0.50), percentile(c, n, 0.90), percentile(c, n, 0.99), percentile(c, n, 0.999),
+                max.get());
+    }
+
+    private static long percentile(long[] c, long n, double p) {
+        long rank = (long) Math.ceil(p * n);
+        long seen = 0;
+        for (int i = 0; i < c.length; i++) {
+            seen += c[i];
+            if (seen >= rank) return valueAt(i);
+        }
+        return valueAt(c.length - 1);
+    }
+}
@@ -0,0 +1,140 @@
+package edu.ccrm.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide metrics registry: counters ({@link LongAdder}), latency histograms, hit/miss ratios
+ * and gauges, all looked up by name once (typically into a static final field) and then updated
+ * without locks or allocation. {@link #toJson()} renders everything as one JSON line.
+ */
+public final class Metrics {
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Map<String, HitRate> HIT_RATES = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> GAUGES = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    /** Hits and misses of a lookup or cache. */
+    public static final class HitRate {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        public void hit() { hits.increment(); }
+        public void miss() { misses.increment(); }
+        /** Counts a hit if {@code found}, otherwise a miss; returns {@code found}. */
+        public boolean record(boolean found) {
+            (found ? hits : misses).increment();
+            return found;
+        }
+        public long getHits() { return hits.sum(); }
+        public long getMisses() { return misses.sum(); }
+        public double getRatio() {
+            long h = hits.sum(), total = h + misses.sum();
+            return total == 0 ? 0 : (double) h / total;
+        }
+    }
+
+    public static LongAdder counter(String name) { return COUNTERS.computeIfAbsent(name, k -> new LongAdder()); }
+    public static LatencyHistogram histogram(String name) { return HISTOGRAMS.computeIfAbsent(name, k -> new LatencyHistogram()); }
+    public static HitRate hitRate(String name) { return HIT_RATES.computeIfAbsent(name, k -> new HitRate()); }
+    /** Registers (or replaces) a value read at snapshot time, such as a collection size. */
+    public static void gauge(String name, LongSupplier value) { GAUGES.put(name, value); }
+
+    /** Human-readable multi-line report, sorted by name; latencies in microseconds. */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        new TreeMap<>(GAUGES).forEach((k, v) -> sb.append(String.format("%-36s %,14d%n", k, v.getAsLong())));
+        new TreeMap<>(COUNTERS).forEach((k, v) -> sb.append(String.format("%-36s %,14d%n", k, v.sum())));
+        new TreeMap<>(HIT_RATES).forEach((k, v) -> sb.append(String.format("%-36s %,14d hits %,12d misses  %5.1f%%%n",
+                k, v.getHits(), v.getMisses(), v.getRatio() * 100)));
+        new TreeMap<>(HISTOGRAMS).forEach((k, v) -> {
+            LatencyHistogram.Snapshot s = v.snapshot();
+            if (s.count() == 0) return;
+            sb.append(String.format("%-36s n=%,d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus%n",
+                    k, s.count(), s.mean() / 1e3, s.p50() / 1e3, s.p99() / 1e3, s.p999() / 1e3, s.max() / 1e3));
+        });
+        return sb.toString();
+    }
+
+    /** All metrics as a single-line JSON object; latencies in microseconds. */
+    public static String toJson() {
+        StringBuilder sb = new StringBuilder(1024).append("{\"ts\":\"").append(Instant.now()).append('"');
+        sb.append(",\"gauges\":{");
+        appendEntries(sb, new TreeMap<>(GAUGES), (b, v) -> b.append(v.getAsLong()));
+        sb.append("},\"counters\":{");
+        appendEntries(sb, new TreeMap<>(COUNTERS), (b, v) -> b.append(v.sum()));
+        sb.append("},\"hitRates\":{");
+        appendEntries(sb, new TreeMap<>(HIT_RATES), (b, v) -> b.append("{\"hits\":").append(v.getHits())
+                .append(",\"misses\":").append(v.getMisses())
+                .append(",\"ratio\":").append(String.format(Locale.ROOT, "%.4f", v.getRatio())).append('}'));
+        sb.append("},\"histograms\":{");
+        appendEntries(sb, new TreeMap<>(HISTOGRAMS), (b, v) -> {
+            LatencyHistogram.Snapshot s = v.snapshot();
+            b.append("{\"count\":").append(s.count())
+                    .append(",\"meanUs\":").append(micros(s.mean()))
+                    .append(",\"p50Us\":").append(micros(s.p50()))
+                    .append(",\"p90Us\":").append(micros(s.p90()))
+                    .append(",\"p99Us\":").append(micros(s.p99()))
+                    .append(",\"p999Us\":").append(micros(s.p999()))
+                    .append(",\"maxUs\":").append(micros(s.max())).append('}');
+        });
+        return sb.append("}}").toString();
+    }
+
+    private static String micros(long nanos) { return String.format(Locale.ROOT, "%.1f", nanos / 1e3); }
+
+    private interface ValueWriter<V> { void write(StringBuilder sb, V value); }
+
+    // metric names are code constants (letters, digits, dots), so they need no JSON escaping
+    private static <V> void appendEntries(StringBuilder sb, Map<String, V> entries, ValueWriter<V> writer) {
+        boolean first = true;
+        for (Map.Entry<String, V> e : entries.entrySet()) {
+            if (!first) sb.append(',');
+            first = false;
+            sb.append('"').append(e.getKey()).append("\":");
+            writer.write(sb, e.getValue());
+        }
+    }
+
+    /**
+     * Appends {@link #toJson()} to {@code <dataFolder>/metrics.jsonl} every {@code period} on a
+     * daemon thread (and once more on close).
+     */
+    public static AutoCloseable startReporter(Path dataFolder, Duration period) throws IOException {
+        Files.createDirectories(dataFolder);
+        Path out = dataFolder.resolve("metrics.jsonl");
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ccrm-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        Runnable write = () -> {
+            try {
+                Files.writeString(out, toJson() + System.lineSeparator(),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException ex) {
+                counter("metrics.writeFailures").increment();
+            }
+        };
+        timer.scheduleAtFixedRate(write, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+        return () -> {
+            timer.shutdownNow();
+            write.run();
+        };
+    }
+}
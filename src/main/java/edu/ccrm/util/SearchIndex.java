@@ -0,0 +1,326 @@
+package edu.ccrm.util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Incremental in-memory search over a growing set of documents, for type-ahead lookups.
+ *
+ * Every document gets a dense int id. Two kinds of text are indexed:
+ * <ul>
+ * <li><b>words</b> (names, titles), split on anything that is not a letter or digit, which are
+ *     matched by prefix and also fuzzily;</li>
+ * <li><b>keys</b> (registration numbers, emails, codes), matched by prefix only, as typed.</li>
+ * </ul>
+ * Prefix lookup walks a range of a {@link ConcurrentSkipListMap} of terms ordered by
+ * {@link String#CASE_INSENSITIVE_ORDER}, which holds the terms as first typed (a key or one-word
+ * name is the document's own String; no lower-cased copies) and a bare Integer for a term with a
+ * single document. Fuzzy lookup finds words sharing a padded bigram with the query token
+ * in n-gram postings over the distinct words (a small vocabulary) and keeps those within one edit
+ * (two for tokens longer than four letters; transpositions count as one).
+ *
+ * A query's tokens must all match (prefix, or fuzzily for words). Results are ranked by exact
+ * term, then prefix coverage, then edit similarity; ties go to the earlier document. Candidates
+ * are visited best term first and the walk stops once the top N cannot improve, and never visits
+ * more than {@value #CANDIDATES} documents, so latency does not grow with the index. Adds are
+ * lock-free except for the document array; documents are never removed, so callers pass a
+ * liveness check to skip replaced ones.
+ */
+public final class SearchIndex<T> {
+    private static final int CANDIDATES = 4096;
+    // terms walked per prefix: a short prefix of unique keys (emails) can cover most of the index
+    private static final int MAX_TERMS = 256;
+    // best score a further query token can add (an exact prefix, see prefixScore)
+    private static final double MAX_TOKEN_BONUS = 2;
+    private static final Object[] NO_DOCS = new Object[0];
+
+    private final Function<T, String> words;
+    private final Function<T, String[]> keys;
+    private final ConcurrentSkipListMap<String, Object> terms = new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER);
+    // distinct lower-cased words, and padded bigram -> ids of the words containing it
+    private final ConcurrentHashMap<String, Integer> wordIds = new ConcurrentHashMap<>();
+    private final List<String> wordList = Collections.synchronizedList(new ArrayList<>());
+    private final ConcurrentHashMap<String, Postings> grams = new ConcurrentHashMap<>();
+    private volatile Object[] docs = NO_DOCS;
+    private int size; // guarded by this
+
+    /** A ranked result. */
+    public record Hit<T>(T item, double score) {}
+
+    public SearchIndex(Function<T, String> words, Function<T, String[]> keys) {
+        this.words = words;
+        this.keys = keys;
+    }
+
+    /** Append-only int list; readers see a prefix of it without locking. */
+    private static final class Postings {
+        private volatile int[] ids;
+        private volatile int count;
+
+        Postings(int first) {
+            ids = new int[] {first, 0};
+            count = 1;
+        }
+
+        Postings(int first, int second) {
+            ids = new int[] {first, second, 0, 0};
+            count = 2;
+        }
+
+        synchronized void add(int id) {
+            int[] a = ids;
+            if (count == a.length) ids = a = Arrays.copyOf(a, a.length * 2);
+            a[count] = id;
+            count = count + 1; // published after the element (and any new array)
+        }
+    }
+
+    public void add(T doc) {
+        int id;
+        synchronized (this) {
+            Object[] d = docs;
+            if (size == d.length) docs = d = Arrays.copyOf(d, Math.max(16, size * 2));
+            d[size] = doc;
+            id = size++;
+        }
+        String text = words.apply(doc);
+        if (text != null) {
+            for (String w : tokenize(text)) {
+                addTerm(w, id);
+                wordIds.computeIfAbsent(w.toLowerCase(Locale.ROOT), this::newWord);
+            }
+        }
+        String[] ks = keys.apply(doc);
+        if (ks != null) for (String k : ks) if (k != null && !k.isEmpty()) addTerm(k, id);
+    }
+
+    public int size() {
+        synchronized (this) { return size; }
+    }
+
+    private void addTerm(String term, int id) {
+        Integer single = id;
+        for (;;) {
+            Object cur = terms.putIfAbsent(term, single);
+            if (cur == null) return;
+            if (cur instanceof Postings p) {
+                p.add(id);
+                return;
+            }
+            if ((Integer) cur == id) return;
+            if (terms.replace(term, cur, new Postings((Integer) cur, id))) return;
+        }
+    }
+
+    // runs once per distinct word (inside computeIfAbsent)
+    private Integer newWord(String w) {
+        int id;
+        synchronized (wordList) {
+            id = wordList.size();
+            wordList.add(w);
+        }
+        for (String g : gramsOf(w)) {
+            grams.compute(g, (k, p) -> {
+                if (p == null) return new Postings(id);
+                p.add(id);
+                return p;
+            });
+        }
+        return id;
+    }
+
+    /** Up to {@code limit} live documents matching every token of {@code query}, best first. */
+    public List<Hit<T>> search(String query, int limit, Predicate<? super T> live) {
+        List<String> tokens = new ArrayList<>();
+        for (String t : query.trim().toLowerCase(Locale.ROOT).split("\\s+")) if (!t.isEmpty()) tokens.add(t);
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+        Object[] snapshot = docs;
+
+        // seed from the most selective token; fuzzy words only when its prefixes run dry
+        String seed = tokens.get(0);
+        int seedCount = Integer.MAX_VALUE;
+        for (String t : tokens) {
+            int n = prefixCount(t);
+            if (n < seedCount) { seed = t; seedCount = n; }
+        }
+        List<Group> groups = prefixGroups(seed);
+        if (seedCount < limit) groups.addAll(fuzzyGroups(seed));
+        groups.sort(Comparator.comparingDouble((Group g) -> -g.score()));
+
+        double bonus = MAX_TOKEN_BONUS * (tokens.size() - 1);
+        PriorityQueue<Ranked<T>> top = new PriorityQueue<>(limit + 1, Ranked.ORDER.reversed());
+        Set<Integer> seen = new HashSet<>();
+        int visited = 0;
+        walk:
+        for (Group g : groups) {
+            int[] ids = g.ids();
+            for (int i = 0; i < g.count(); i++) {
+                // later documents in this group can only tie, and ties go to earlier documents
+                if (top.size() == limit && g.score() + bonus <= top.peek().score()) break;
+                if (!seen.add(ids[i])) continue;
+                if (++visited > CANDIDATES) break walk;
+                if (ids[i] >= snapshot.length) continue;
+                @SuppressWarnings("unchecked") T doc = (T) snapshot[ids[i]];
+                if (doc == null || !live.test(doc)) continue;
+                double score = g.score();
+                for (String t : tokens) {
+                    if (t == seed) continue;
+                    double s = matchScore(doc, t);
+                    if (s == 0) { score = -1; break; }
+                    score += s;
+                }
+                if (score < 0) continue;
+                top.add(new Ranked<>(doc, ids[i], score));
+                if (top.size() > limit) top.poll();
+            }
+        }
+        List<Ranked<T>> ranked = new ArrayList<>(top);
+        ranked.sort(Ranked.ORDER);
+        List<Hit<T>> hits = new ArrayList<>(ranked.size());
+        for (Ranked<T> r : ranked) hits.add(new Hit<>(r.doc(), r.score()));
+        return hits;
+    }
+
+    // best score first, then the earlier document
+    private record Ranked<T>(T doc, int id, double score) {
+        static final Comparator<Ranked<?>> ORDER =
+                Comparator.<Ranked<?>>comparingDouble(r -> -r.score()).thenComparingInt(Ranked::id);
+    }
+
+    /** The documents of one matching term, all with the same score. */
+    private record Group(double score, int[] ids, int count) {
+        static Group of(double score, Object postings) {
+            if (postings instanceof Integer id) return new Group(score, new int[] {id}, 1);
+            Postings p = (Postings) postings;
+            int n = p.count; // read before ids: the array is at least this long
+            return new Group(score, p.ids, n);
+        }
+    }
+
+    private NavigableMap<String, Object> prefixRange(String token) {
+        return terms.subMap(token, true, token + Character.MAX_VALUE, false);
+    }
+
+    /** Postings under terms starting with {@code token}, counted up to the candidate cap. */
+    private int prefixCount(String token) {
+        int n = 0, terms = 0;
+        for (Object p : prefixRange(token).values()) {
+            n += p instanceof Postings ps ? ps.count : 1;
+            if (n >= CANDIDATES || ++terms == MAX_TERMS) break;
+        }
+        return n;
+    }
+
+    /**
+     * Terms starting with {@code token}: 3 for the exact term, 2-3 by how much of the term it covers.
+     * Terms are visited in order (so the exact term comes first) until the candidate cap is covered
+     * or {@value #MAX_TERMS} terms were seen.
+     */
+    private List<Group> prefixGroups(String token) {
+        List<Group> out = new ArrayList<>();
+        int n = 0;
+        for (Map.Entry<String, Object> e : prefixRange(token).entrySet()) {
+            String term = e.getKey();
+            Group g = Group.of(term.length() == token.length() ? 3 : 2 + (double) token.length() / term.length(), e.getValue());
+            out.add(g);
+            if ((n += g.count()) >= CANDIDATES || out.size() == MAX_TERMS) break;
+        }
+        return out;
+    }
+
+    /** Words within the edit budget of {@code token}, scored 0-1.5 by similarity. */
+    private List<Group> fuzzyGroups(String token) {
+        List<Group> out = new ArrayList<>();
+        String w = token.toLowerCase(Locale.ROOT);
+        if (w.length() < 3) return out;
+        Set<Integer> tried = new HashSet<>();
+        for (String g : gramsOf(w)) {
+            Postings p = grams.get(g);
+            if (p == null) continue;
+            int n = p.count;
+            int[] ids = p.ids;
+            for (int i = 0; i < n; i++) {
+                if (!tried.add(ids[i])) continue;
+                String word = wordList.get(ids[i]);
+                double sim = similarity(w, word);
+                Object postings = sim > 0 ? terms.get(word) : null;
+                if (postings != null) out.add(Group.of(1.5 * sim, postings));
+            }
+        }
+        return out;
+    }
+
+    /** How well a further query token matches a candidate: 1-2 for a prefix, under 1 for a near miss, else 0. */
+    private double matchScore(T doc, String token) {
+        double best = 0;
+        String text = words.apply(doc);
+        List<String> ws = text == null ? List.of() : tokenize(text);
+        for (String w : ws) best = Math.max(best, prefixScore(w, token));
+        String[] ks = keys.apply(doc);
+        if (ks != null) for (String k : ks) if (k != null) best = Math.max(best, prefixScore(k, token));
+        if (best > 0 || token.length() < 3) return best;
+        String t = token.toLowerCase(Locale.ROOT);
+        for (String w : ws) best = Math.max(best, 0.75 * similarity(t, w.toLowerCase(Locale.ROOT)));
+        return best;
+    }
+
+    private static double prefixScore(String term, String token) {
+        if (!term.regionMatches(true, 0, token, 0, token.length())) return 0;
+        return 1 + (double) token.length() / term.length();
+    }
+
+    /** 1 - edits/length when {@code a} and {@code b} are within the edit budget of {@code a}, else 0. */
+    static double similarity(String a, String b) {
+        int budget = a.length() <= 4 ? 1 : 2;
+        if (Math.abs(a.length() - b.length()) > budget) return 0;
+        int d = editDistance(a, b);
+        return d > budget ? 0 : 1 - (double) d / Math.max(a.length(), b.length());
+    }
+
+    /** Optimal string alignment distance: insertions, deletions, substitutions and adjacent transpositions. */
+    static int editDistance(String a, String b) {
+        int[] prev2 = new int[b.length() + 1], prev = new int[b.length() + 1], cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    cur[j] = Math.min(cur[j], prev2[j - 2] + 1);
+                }
+            }
+            int[] t = prev2; prev2 = prev; prev = cur; cur = t;
+        }
+        return prev[b.length()];
+    }
+
+    /** Letter/digit runs of {@code text}. */
+    static List<String> tokenize(String text) {
+        List<String> out = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) start = i;
+            else if (!wordChar && start >= 0) {
+                out.add(start == 0 && i == text.length() ? text : text.substring(start, i));
+                start = -1;
+            }
+        }
+        return out;
+    }
+
+    /** Distinct bigrams of the word padded with a space on each side ("ann" -> " a", "an", "nn", "n "). */
+    static List<String> gramsOf(String w) {
+        String padded = " " + w + " ";
+        List<String> out = new ArrayList<>(padded.length());
+        for (int i = 0; i + 2 <= padded.length(); i++) {
+            String g = padded.substring(i, i + 2);
+            if (!out.contains(g)) out.add(g);
+        }
+        return out;
+    }
+}
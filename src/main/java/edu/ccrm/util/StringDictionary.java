@@ -0,0 +1,47 @@
+package edu.ccrm.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only dictionary mapping strings to dense int ids (0, 1, 2, ...) and back. Objects that
+ * repeat a small set of values (departments, course codes) store the int and share one canonical
+ * String. Lookups are lock-free; only adding a new value takes the dictionary's lock.
+ */
+public final class StringDictionary {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private int size; // guarded by this
+
+    /** Id of {@code value}, assigning the next one if it is new; null maps to -1. */
+    public int encode(String value) {
+        if (value == null) return -1;
+        Integer id = ids.get(value);
+        if (id != null) return id;
+        synchronized (this) {
+            id = ids.get(value);
+            if (id != null) return id;
+            String[] v = values;
+            if (size == v.length) values = v = Arrays.copyOf(v, size * 2);
+            v[size] = value;
+            // the array slot is written before the id is published through the map
+            ids.put(value, size);
+            return size++;
+        }
+    }
+
+    /** Id of {@code value}, or -1 if it was never encoded. */
+    public int idOf(String value) {
+        if (value == null) return -1;
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    /** The string for an id returned by {@link #encode}; -1 gives null. */
+    public String decode(int id) { return id < 0 ? null : values[id]; }
+
+    /** The shared instance equal to {@code value}. */
+    public String canonical(String value) { return decode(encode(value)); }
+
+    public int size() { return ids.size(); }
+}
@@ -0,0 +1,109 @@
+package edu.ccrm.config;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writers share a small set of students, so adds and removes keep landing on the same bins, while
+ * readers snapshot those students. Afterwards every row a writer still holds is stored exactly
+ * once, nothing else is, and each shard's counter matches what the shard holds.
+ */
+class EnrollmentStoreConcurrencyTest {
+    private static final int STUDENTS = 64, WRITERS = 6, READERS = 2, OPS = 20_000;
+
+    @Test
+    void concurrentAddsRemovesAndReadsLoseAndDuplicateNothing() throws InterruptedException {
+        EnrollmentStore store = new EnrollmentStore(8);
+        Course course = new Course.Builder("CS101").credits(3).build();
+        Student[] students = new Student[STUDENTS];
+        for (int i = 0; i < STUDENTS; i++) students[i] = new Student("s-" + i, "R" + i, "Student " + i, null);
+
+        List<List<Enrollment>> held = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) held.add(new ArrayList<>());
+        AtomicInteger failures = new AtomicInteger();
+        AtomicReference<Throwable> first = new AtomicReference<>();
+        CountDownLatch go = new CountDownLatch(1), writersDone = new CountDownLatch(WRITERS);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            List<Enrollment> mine = held.get(w);
+            threads.add(new Thread(() -> {
+                try {
+                    go.await();
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    for (int op = 0; op < OPS; op++) {
+                        if (mine.isEmpty() || rnd.nextInt(3) != 0) {
+                            Enrollment e = new Enrollment(students[rnd.nextInt(STUDENTS)], course);
+                            store.add(e);
+                            mine.add(e);
+                        } else {
+                            Enrollment e = mine.remove(rnd.nextInt(mine.size()));
+                            if (!store.remove(e)) throw new AssertionError("lost " + e.getStudent().getId());
+                            if (store.remove(e)) throw new AssertionError("removed twice " + e.getStudent().getId());
+                        }
+                    }
+                } catch (Throwable t) {
+                    failures.incrementAndGet();
+                    first.compareAndSet(null, t);
+                } finally {
+                    writersDone.countDown();
+                }
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            threads.add(new Thread(() -> {
+                try {
+                    go.await();
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    while (writersDone.getCount() > 0) {
+                        Student s = students[rnd.nextInt(STUDENTS)];
+                        Set<Enrollment> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+                        for (Enrollment e : store.forStudent(s.getId())) {
+                            if (e.getStudent() != s) throw new AssertionError("foreign row under " + s.getId());
+                            if (!seen.add(e)) throw new AssertionError("duplicate row under " + s.getId());
+                        }
+                    }
+                } catch (Throwable t) {
+                    failures.incrementAndGet();
+                    first.compareAndSet(null, t);
+                }
+            }));
+        }
+        for (Thread t : threads) t.start();
+        go.countDown();
+        for (Thread t : threads) t.join();
+        assertEquals(0, failures.get(), () -> failures.get() + " thread(s) failed, first: " + first.get());
+
+        Map<Enrollment, Integer> stored = new IdentityHashMap<>();
+        store.forEach(e -> stored.merge(e, 1, Integer::sum));
+        int expected = 0;
+        for (List<Enrollment> mine : held) {
+            for (Enrollment e : mine) {
+                assertEquals(1, stored.getOrDefault(e, 0), "row stored other than once");
+                expected++;
+            }
+        }
+        assertEquals(expected, stored.size(), "rows stored that no writer holds");
+        assertEquals(expected, store.size());
+        long total = 0;
+        for (int i = 0; i < store.shardCount(); i++) {
+            assertEquals(store.storedIn(i), store.countedIn(i), "shard " + i + " count");
+            total += store.storedIn(i);
+        }
+        assertEquals(expected, total);
+        for (Student s : students) {
+            int n = 0;
+            for (List<Enrollment> mine : held) for (Enrollment e : mine) if (e.getStudent() == s) n++;
+            assertEquals(n, store.forStudent(s.getId()).size(), s.getId());
+        }
+    }
+}